@@ -0,0 +1,176 @@
+-- ============================================================
+-- PARTICIONADO MENSUAL DE LA TABLA transaccion
+-- ============================================================
+-- Convierte public.transaccion en una tabla particionada por
+-- rango mensual sobre fecha_transaccion.
+--
+-- - Crea una partición por cada mes con datos y 3 meses hacia adelante
+-- - Las particiones futuras las crea ParticionTransaccionService
+--   (job programado, ver lumeo.transaccion.particiones.* en
+--   application.properties)
+-- - Las particiones antiguas pueden desvincularse con
+--   ALTER TABLE transaccion DETACH PARTITION transaccion_pYYYYMM
+--   y archivarse sin reescribir la tabla
+-- - Las claves foráneas de transaccion se vuelven a crear; las que
+--   apuntan a transaccion (adjunto) se sustituyen por triggers (Paso 8)
+--
+-- Ejecutar con el backend PARADO. La tabla original se conserva como
+-- transaccion_sin_particionar hasta verificar la migración.
+-- ============================================================
+
+BEGIN;
+
+-- Paso 1: Comprobar que no hay transacciones sin fecha
+-- La clave de partición no admite NULL dentro de la clave primaria
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM public.transaccion WHERE fecha_transaccion IS NULL) THEN
+    RAISE EXCEPTION 'Hay transacciones con fecha_transaccion NULL. Corrígelas antes de particionar.';
+  END IF;
+END $$;
+
+LOCK TABLE public.transaccion IN ACCESS EXCLUSIVE MODE;
+
+-- Paso 2: Guardar las claves foráneas que salen de transaccion (usuario, categoría,
+-- divisa, adjunto...) para volver a crearlas en la tabla particionada: LIKE no las copia
+CREATE TEMP TABLE fk_salientes_transaccion ON COMMIT DROP AS
+SELECT conname, pg_get_constraintdef(oid) AS definicion
+FROM pg_constraint
+WHERE contype = 'f' AND conrelid = 'public.transaccion'::regclass;
+
+-- Eliminar las claves foráneas que apuntan a transaccion(id)
+-- En una tabla particionada la clave única debe incluir fecha_transaccion, así que
+-- no pueden volver a crearse; el Paso 8 las sustituye por triggers
+DO $$
+DECLARE
+  r RECORD;
+BEGIN
+  FOR r IN
+    SELECT conname, conrelid::regclass AS tabla
+    FROM pg_constraint
+    WHERE contype = 'f' AND confrelid = 'public.transaccion'::regclass
+  LOOP
+    RAISE NOTICE 'Eliminando FK % en %', r.conname, r.tabla;
+    EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', r.tabla, r.conname);
+  END LOOP;
+END $$;
+
+-- Paso 3: Renombrar la tabla original
+ALTER TABLE public.transaccion RENAME TO transaccion_sin_particionar;
+
+-- Paso 4: Crear la tabla particionada con las mismas columnas
+CREATE SEQUENCE IF NOT EXISTS public.transaccion_id_particionada_seq;
+SELECT setval('public.transaccion_id_particionada_seq',
+              COALESCE((SELECT MAX(id) FROM public.transaccion_sin_particionar), 0) + 1,
+              false);
+
+CREATE TABLE public.transaccion (
+  LIKE public.transaccion_sin_particionar INCLUDING DEFAULTS
+) PARTITION BY RANGE (fecha_transaccion);
+
+ALTER TABLE public.transaccion
+  ALTER COLUMN id SET DEFAULT nextval('public.transaccion_id_particionada_seq');
+ALTER SEQUENCE public.transaccion_id_particionada_seq OWNED BY public.transaccion.id;
+
+ALTER TABLE public.transaccion ADD PRIMARY KEY (id, fecha_transaccion);
+
+-- Paso 5: Crear particiones mensuales (meses con datos + 3 meses adelante)
+DO $$
+DECLARE
+  mes_inicio DATE;
+  mes_fin DATE;
+BEGIN
+  SELECT date_trunc('month', COALESCE(MIN(fecha_transaccion), CURRENT_DATE))::date
+    INTO mes_inicio
+    FROM public.transaccion_sin_particionar;
+  mes_fin := (date_trunc('month', GREATEST(
+                COALESCE((SELECT MAX(fecha_transaccion) FROM public.transaccion_sin_particionar), CURRENT_DATE),
+                CURRENT_DATE)) + INTERVAL '3 months')::date;
+
+  WHILE mes_inicio <= mes_fin LOOP
+    EXECUTE format(
+      'CREATE TABLE IF NOT EXISTS public.%I PARTITION OF public.transaccion FOR VALUES FROM (%L) TO (%L)',
+      'transaccion_p' || to_char(mes_inicio, 'YYYYMM'),
+      mes_inicio,
+      (mes_inicio + INTERVAL '1 month')::date);
+    mes_inicio := (mes_inicio + INTERVAL '1 month')::date;
+  END LOOP;
+END $$;
+
+-- Partición por defecto para fechas fuera de rango (debería quedar vacía)
+-- Si recibe filas de un mes futuro, ParticionTransaccionService.crearParticion
+-- las mueve a la partición de su mes cuando esta se crea
+CREATE TABLE IF NOT EXISTS public.transaccion_default PARTITION OF public.transaccion DEFAULT;
+
+-- Paso 6: Índices locales (se propagan a cada partición)
+CREATE INDEX IF NOT EXISTS idx_transaccion_usuario_fecha
+  ON public.transaccion (id_usuario, fecha_transaccion);
+CREATE INDEX IF NOT EXISTS idx_transaccion_destinatario_fecha
+  ON public.transaccion (id_destinatario, fecha_transaccion);
+CREATE INDEX IF NOT EXISTS idx_transaccion_grupal
+  ON public.transaccion (id_transaccion_grupal);
+
+-- Paso 7: Copiar los datos
+INSERT INTO public.transaccion SELECT * FROM public.transaccion_sin_particionar;
+
+-- Volver a crear las claves foráneas salientes (se validan una vez, tras la copia)
+DO $$
+DECLARE
+  r RECORD;
+BEGIN
+  FOR r IN SELECT conname, definicion FROM fk_salientes_transaccion LOOP
+    RAISE NOTICE 'Creando FK % en transaccion', r.conname;
+    EXECUTE format('ALTER TABLE public.transaccion ADD CONSTRAINT %I %s', r.conname, r.definicion);
+  END LOOP;
+END $$;
+
+-- Paso 8: Integridad de adjunto.id_transaccion sin clave foránea
+-- adjunto solo guarda el id, no la fecha, así que no puede referenciar la clave
+-- (id, fecha_transaccion). Dos triggers hacen lo que hacía la FK (sin ON DELETE):
+-- - no se puede crear ni cambiar un adjunto que apunte a una transacción inexistente
+-- - no se puede eliminar una transacción que tenga adjuntos
+-- AdjuntoModel declara la relación con NO_CONSTRAINT para que Hibernate no intente
+-- volver a crear la FK. Si el aviso del Paso 2 listó otras tablas, necesitan lo mismo
+CREATE OR REPLACE FUNCTION public.comprobar_adjunto_transaccion()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM public.transaccion WHERE id = NEW.id_transaccion) THEN
+    RAISE EXCEPTION 'La transacción % no existe', NEW.id_transaccion
+      USING ERRCODE = 'foreign_key_violation';
+  END IF;
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_adjunto_transaccion ON public.adjunto;
+CREATE TRIGGER trg_adjunto_transaccion
+  BEFORE INSERT OR UPDATE OF id_transaccion ON public.adjunto
+  FOR EACH ROW EXECUTE FUNCTION public.comprobar_adjunto_transaccion();
+
+-- Un UPDATE que cambia fecha_transaccion de mes mueve la fila de partición como
+-- DELETE + INSERT y dispara este trigger: por eso solo falla si el id ya no existe
+CREATE OR REPLACE FUNCTION public.comprobar_transaccion_sin_adjuntos()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM public.adjunto WHERE id_transaccion = OLD.id)
+     AND NOT EXISTS (SELECT 1 FROM public.transaccion WHERE id = OLD.id) THEN
+    RAISE EXCEPTION 'La transacción % tiene adjuntos', OLD.id
+      USING ERRCODE = 'foreign_key_violation';
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_transaccion_adjuntos ON public.transaccion;
+CREATE TRIGGER trg_transaccion_adjuntos
+  AFTER DELETE ON public.transaccion
+  FOR EACH ROW EXECUTE FUNCTION public.comprobar_transaccion_sin_adjuntos();
+
+CREATE INDEX IF NOT EXISTS idx_adjunto_transaccion ON public.adjunto (id_transaccion);
+
+COMMIT;
+
+ANALYZE public.transaccion;
+
+-- Cuando se haya verificado la migración:
+-- DROP TABLE public.transaccion_sin_particionar;
@@ -0,0 +1,65 @@
+-- ============================================================
+-- SALDOS DE GRUPO (saldo_grupo)
+-- ============================================================
+-- Crea la tabla de saldos netos por grupo y miembro y la columna
+-- transaccion_grupal.id_pagador. Con ddl-auto=update el backend
+-- también las crea al arrancar; este script sirve para crearlas
+-- a mano y para RECALCULAR los saldos desde el historial si
+-- alguna vez se desincronizan.
+--
+-- - Solo cuentan las transacciones grupales con id_pagador
+--   (las anteriores a este cambio no tienen pagador)
+-- - Cada transacción individual no pagada (id_estado <> 3) de un
+--   usuario distinto del pagador es una deuda: en un gasto
+--   (id_tipo 2) el usuario debe su parte al pagador; en un
+--   ingreso (id_tipo 1) el pagador debe su parte al usuario.
+--   Otros tipos no cuentan (igual que SaldoGrupoService.deudaDe)
+--
+-- Se puede ejecutar con el backend arrancado: la tabla queda
+-- bloqueada mientras se recalcula.
+-- ============================================================
+
+BEGIN;
+
+ALTER TABLE public.transaccion_grupal
+  ADD COLUMN IF NOT EXISTS id_pagador BIGINT REFERENCES public.usuario(id);
+
+CREATE TABLE IF NOT EXISTS public.saldo_grupo (
+  id_grupo   BIGINT NOT NULL REFERENCES public.grupo(id),
+  id_usuario BIGINT NOT NULL REFERENCES public.usuario(id),
+  saldo      DOUBLE PRECISION NOT NULL DEFAULT 0,
+  PRIMARY KEY (id_grupo, id_usuario)
+);
+
+LOCK TABLE public.saldo_grupo IN EXCLUSIVE MODE;
+
+-- Recalcular todos los saldos desde las transacciones pendientes
+DELETE FROM public.saldo_grupo;
+
+INSERT INTO public.saldo_grupo (id_grupo, id_usuario, saldo)
+SELECT id_grupo, id_usuario, SUM(importe)
+FROM (
+  -- Lo que le deben al pagador (gasto) o lo que debe él (ingreso)
+  SELECT tg.id_grupo, tg.id_pagador AS id_usuario,
+         CASE tg.id_tipo WHEN 2 THEN t.importe ELSE -t.importe END AS importe
+  FROM public.transaccion t
+  JOIN public.transaccion_grupal tg ON tg.id = t.id_transaccion_grupal
+  WHERE tg.id_pagador IS NOT NULL
+    AND tg.id_tipo IN (1, 2)
+    AND t.id_usuario <> tg.id_pagador
+    AND t.id_estado IS DISTINCT FROM 3
+  UNION ALL
+  -- Lo que debe cada miembro (gasto) o lo que se le debe (ingreso)
+  SELECT tg.id_grupo, t.id_usuario,
+         CASE tg.id_tipo WHEN 2 THEN -t.importe ELSE t.importe END AS importe
+  FROM public.transaccion t
+  JOIN public.transaccion_grupal tg ON tg.id = t.id_transaccion_grupal
+  WHERE tg.id_pagador IS NOT NULL
+    AND tg.id_tipo IN (1, 2)
+    AND t.id_usuario <> tg.id_pagador
+    AND t.id_estado IS DISTINCT FROM 3
+) movimientos
+WHERE importe IS NOT NULL
+GROUP BY id_grupo, id_usuario;
+
+COMMIT;
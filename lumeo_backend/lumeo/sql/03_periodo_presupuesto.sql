@@ -0,0 +1,50 @@
+-- ============================================================
+-- PERIODO NUMÉRICO DE PRESUPUESTO (presupuesto.periodo)
+-- ============================================================
+-- Añade presupuesto.periodo (yyyymm, por ejemplo 202503 para
+-- "Marzo" de "2025"), lo rellena a partir de mes/anio y crea el
+-- índice único (id_usuario, periodo). Con ddl-auto=update el
+-- backend crea la columna y la restricción al arrancar y rellena
+-- los periodos pendientes (PresupuestoService.rellenarPeriodos);
+-- este script hace lo mismo a mano.
+--
+-- - mes y anio se mantienen: la API sigue usándolos
+-- - Si un usuario tiene varios presupuestos del mismo mes, solo
+--   el más reciente recibe periodo; los demás quedan con periodo
+--   NULL (no se borra nada). La consulta del final los lista
+--   para revisarlos
+-- ============================================================
+
+BEGIN;
+
+ALTER TABLE public.presupuesto
+  ADD COLUMN IF NOT EXISTS periodo INTEGER;
+
+WITH calculado AS (
+  SELECT p.id, p.id_usuario, CAST(trim(p.anio) AS integer) * 100 + m.numero AS periodo,
+         row_number() OVER (PARTITION BY p.id_usuario, trim(p.anio), m.numero
+                            ORDER BY p.fecha_modificacion DESC NULLS LAST, p.id DESC) AS orden
+  FROM public.presupuesto p
+  JOIN (VALUES ('enero', 1), ('febrero', 2), ('marzo', 3), ('abril', 4), ('mayo', 5), ('junio', 6),
+               ('julio', 7), ('agosto', 8), ('septiembre', 9), ('setiembre', 9), ('octubre', 10),
+               ('noviembre', 11), ('diciembre', 12)) AS m(nombre, numero)
+    ON lower(trim(p.mes)) = m.nombre
+  WHERE p.periodo IS NULL AND trim(p.anio) ~ '^[0-9]{4}$'
+)
+UPDATE public.presupuesto p SET periodo = c.periodo
+FROM calculado c
+WHERE p.id = c.id AND c.orden = 1
+  AND NOT EXISTS (SELECT 1 FROM public.presupuesto o
+                  WHERE o.id_usuario = c.id_usuario AND o.periodo = c.periodo);
+
+-- Los NULL no chocan entre sí: los duplicados sin periodo no impiden el índice
+CREATE UNIQUE INDEX IF NOT EXISTS uk_presupuesto_usuario_periodo
+  ON public.presupuesto (id_usuario, periodo);
+
+COMMIT;
+
+-- Presupuestos que se han quedado sin periodo (duplicados o mes/año no reconocidos)
+SELECT id, id_usuario, mes, anio, cantidad, fecha_creacion
+FROM public.presupuesto
+WHERE periodo IS NULL
+ORDER BY id_usuario, anio, mes;
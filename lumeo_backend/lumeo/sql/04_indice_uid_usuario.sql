@@ -0,0 +1,20 @@
+-- ============================================================
+-- ÍNDICE ÚNICO SOBRE usuario.uid
+-- ============================================================
+-- Los endpoints /uid/{uid} resuelven el usuario por uid (el id de
+-- Supabase Auth). Con ddl-auto=update el backend crea el índice al
+-- arrancar; este script lo crea a mano sin bloquear la tabla
+-- (CONCURRENTLY no puede ir dentro de BEGIN/COMMIT).
+--
+-- Si falla por duplicados, la consulta de abajo los lista: hay que
+-- resolverlos antes (cada uid de Auth corresponde a un solo usuario).
+-- ============================================================
+
+SELECT uid, array_agg(id ORDER BY id) AS ids
+FROM public.usuario
+WHERE uid IS NOT NULL
+GROUP BY uid
+HAVING count(*) > 1;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_usuario_uid
+  ON public.usuario (uid);
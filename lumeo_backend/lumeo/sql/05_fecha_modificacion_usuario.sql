@@ -0,0 +1,38 @@
+-- ============================================================
+-- FECHA DE MODIFICACIÓN DE usuario
+-- ============================================================
+-- El filtro de nombres de usuario y correos del backend
+-- (FiltroUsuariosService) relee cada pocos segundos las filas
+-- nuevas y las modificadas. Los cambios de nombre o correo pueden
+-- venir de otra instancia del backend o de Supabase, así que la
+-- fecha de modificación la pone la base de datos con un trigger
+-- y no quien hace el UPDATE.
+--
+-- Sin este trigger el backend no activa el filtro (un cambio de
+-- nombre que no viera haría que respondiera "no existe" para un
+-- usuario real) y consulta siempre la base de datos.
+-- ============================================================
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION public.usuario_fecha_modificacion()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  NEW.fecha_modificacion := now();
+  RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_usuario_fecha_modificacion ON public.usuario;
+CREATE TRIGGER trg_usuario_fecha_modificacion
+  BEFORE UPDATE ON public.usuario
+  FOR EACH ROW
+  EXECUTE FUNCTION public.usuario_fecha_modificacion();
+
+COMMIT;
+
+-- Índice para la consulta de refresco (id > ? OR fecha_modificacion > ?)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_usuario_fecha_modificacion
+  ON public.usuario (fecha_modificacion);
@@ -0,0 +1,116 @@
+-- ============================================================
+-- BENCHMARK: CONSULTAS MENSUALES DEL DASHBOARD
+-- Tabla particionada vs. tabla sin particionar
+-- ============================================================
+-- Genera datos sintéticos en el esquema "bench" (no toca public)
+-- y ejecuta con EXPLAIN ANALYZE las mismas consultas que usa
+-- TransaccionRepository para el dashboard mensual.
+--
+-- Uso:
+--   psql -d <base_de_datos> -f sql/benchmark_particionado.sql
+--
+-- Parámetros (editar abajo): número de usuarios, años de histórico
+-- y transacciones por usuario y mes.
+-- ============================================================
+
+\set usuarios 2000
+\set anios 4
+\set por_mes 40
+\timing on
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+-- Paso 1: Tabla sin particionar
+CREATE TABLE bench.transaccion_plana (
+  id BIGSERIAL PRIMARY KEY,
+  titulo TEXT NOT NULL,
+  importe DOUBLE PRECISION,
+  id_divisa_original BIGINT,
+  fecha_transaccion DATE NOT NULL,
+  id_usuario BIGINT,
+  id_categoria BIGINT,
+  id_tipo BIGINT,
+  id_estado BIGINT,
+  id_destinatario BIGINT,
+  importe_destinatario DOUBLE PRECISION
+);
+
+INSERT INTO bench.transaccion_plana
+  (titulo, importe, id_divisa_original, fecha_transaccion, id_usuario, id_categoria, id_tipo, id_estado,
+   id_destinatario, importe_destinatario)
+SELECT
+  'Transacción ' || g,
+  round((random() * 200)::numeric, 2),
+  1,
+  (CURRENT_DATE - (random() * 365 * :anios)::int),
+  1 + (random() * (:usuarios - 1))::int,
+  1 + (random() * 9)::int,
+  CASE WHEN random() < 0.8 THEN 2 ELSE 1 END,
+  3,
+  CASE WHEN random() < 0.05 THEN 1 + (random() * (:usuarios - 1))::int END,
+  NULL
+FROM generate_series(1, :usuarios * :anios * 12 * :por_mes) g;
+
+CREATE INDEX ON bench.transaccion_plana (id_usuario, fecha_transaccion);
+CREATE INDEX ON bench.transaccion_plana (id_destinatario, fecha_transaccion);
+
+-- Paso 2: Tabla particionada por mes con los mismos datos
+CREATE TABLE bench.transaccion_particionada (LIKE bench.transaccion_plana INCLUDING DEFAULTS)
+  PARTITION BY RANGE (fecha_transaccion);
+
+DO $$
+DECLARE
+  mes DATE := date_trunc('month', (SELECT MIN(fecha_transaccion) FROM bench.transaccion_plana))::date;
+BEGIN
+  WHILE mes <= CURRENT_DATE LOOP
+    EXECUTE format('CREATE TABLE bench.%I PARTITION OF bench.transaccion_particionada FOR VALUES FROM (%L) TO (%L)',
+                   'tp_' || to_char(mes, 'YYYYMM'), mes, (mes + INTERVAL '1 month')::date);
+    mes := (mes + INTERVAL '1 month')::date;
+  END LOOP;
+END $$;
+
+INSERT INTO bench.transaccion_particionada SELECT * FROM bench.transaccion_plana;
+CREATE INDEX ON bench.transaccion_particionada (id_usuario, fecha_transaccion);
+CREATE INDEX ON bench.transaccion_particionada (id_destinatario, fecha_transaccion);
+
+VACUUM ANALYZE bench.transaccion_plana;
+VACUUM ANALYZE bench.transaccion_particionada;
+
+-- Paso 3: Gasto mensual de un usuario (presupuestos)
+-- Forma antigua con EXTRACT (no permite poda de particiones)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(importe), 0) FROM bench.transaccion_particionada
+WHERE (id_usuario = 42 OR id_destinatario = 42) AND id_tipo = 2
+  AND EXTRACT(MONTH FROM fecha_transaccion) = EXTRACT(MONTH FROM CURRENT_DATE)
+  AND EXTRACT(YEAR FROM fecha_transaccion) = EXTRACT(YEAR FROM CURRENT_DATE);
+
+-- Forma nueva con rango sobre la tabla sin particionar
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(importe), 0) FROM bench.transaccion_plana
+WHERE (id_usuario = 42 OR id_destinatario = 42) AND id_tipo = 2
+  AND fecha_transaccion >= date_trunc('month', CURRENT_DATE)::date
+  AND fecha_transaccion < (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month')::date;
+
+-- Forma nueva con rango sobre la tabla particionada (solo lee 1 partición)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(importe), 0) FROM bench.transaccion_particionada
+WHERE (id_usuario = 42 OR id_destinatario = 42) AND id_tipo = 2
+  AND fecha_transaccion >= date_trunc('month', CURRENT_DATE)::date
+  AND fecha_transaccion < (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month')::date;
+
+-- Paso 4: Resumen del mes actual de todos los usuarios (agregado del dashboard)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id_usuario, id_tipo, SUM(importe) FROM bench.transaccion_plana
+WHERE fecha_transaccion >= date_trunc('month', CURRENT_DATE)::date
+  AND fecha_transaccion < (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month')::date
+GROUP BY id_usuario, id_tipo;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id_usuario, id_tipo, SUM(importe) FROM bench.transaccion_particionada
+WHERE fecha_transaccion >= date_trunc('month', CURRENT_DATE)::date
+  AND fecha_transaccion < (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month')::date
+GROUP BY id_usuario, id_tipo;
+
+-- Limpieza
+-- DROP SCHEMA bench CASCADE;
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# ============================================================
+# Compara configuraciones del servidor con PruebaCarga
+# ============================================================
+# Arranca el JAR de la API una vez por configuración, espera a que
+# /actuator/health responda, lanza PruebaCarga con cada concurrencia
+# y guarda un JSON por ejecución en target/carga/comparacion/
+# (etiqueta-cN.json, con latencias, req/s, hilos, heap y CPU del servidor)
+#
+# Uso (desde lumeo_backend/lumeo, con DATABASE_URL... en el entorno
+# y los datos de GeneradorDatos cargados):
+#   mvn -DskipTests package
+#   mvn -Pbenchmarks -DskipTests test-compile
+#   src/benchmark/carga/comparar-configuraciones.sh target/lumeo-0.0.1-SNAPSHOT.jar \
+#     "plataforma:--spring.threads.virtual.enabled=false" \
+#     "virtuales:--spring.threads.virtual.enabled=true"
+#
+# Cada configuración es "etiqueta:argumentos de Spring separados por espacios"
+# Variables: CONCURRENCIAS (por defecto "16 64 256"), DURACION (60),
+# CALENTAMIENTO (15), PUERTO (8080), JAVA (java), JAVA_OPTS
+# Los hilos virtuales solo tienen efecto si JAVA es un Java 21 o superior
+# ============================================================
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  echo "Uso: $0 app.jar 'etiqueta:--propiedad=valor ...' ..." >&2
+  exit 1
+fi
+
+JAR="$1"
+shift
+CONCURRENCIAS="${CONCURRENCIAS:-16 64 256}"
+DURACION="${DURACION:-60}"
+CALENTAMIENTO="${CALENTAMIENTO:-15}"
+PUERTO="${PUERTO:-8080}"
+JAVA="${JAVA:-java}"
+SALIDA="target/carga/comparacion"
+mkdir -p "$SALIDA"
+
+for configuracion in "$@"; do
+  etiqueta="${configuracion%%:*}"
+  argumentos="${configuracion#*:}"
+
+  echo "== $etiqueta: $argumentos"
+  # shellcheck disable=SC2086
+  "$JAVA" ${JAVA_OPTS:-} -jar "$JAR" --server.port="$PUERTO" $argumentos > "$SALIDA/$etiqueta.log" 2>&1 &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+
+  for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$PUERTO/actuator/health" > /dev/null; then
+      break
+    fi
+    sleep 1
+  done
+
+  for concurrencia in $CONCURRENCIAS; do
+    mvn -q -Pbenchmarks exec:exec@prueba-carga -Dcarga.args="base=http://localhost:$PUERTO \
+      concurrencia=$concurrencia duracion=$DURACION calentamiento=$CALENTAMIENTO \
+      etiqueta=$etiqueta resultado=$SALIDA/$etiqueta-c$concurrencia.json"
+  done
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+done
+
+echo "Resultados en $SALIDA"
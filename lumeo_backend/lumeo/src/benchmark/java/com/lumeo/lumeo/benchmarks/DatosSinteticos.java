@@ -0,0 +1,255 @@
+package com.lumeo.lumeo.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lumeo.lumeo.models.CategoriaModel;
+import com.lumeo.lumeo.models.DivisaModel;
+import com.lumeo.lumeo.models.EstadoTransaccionModel;
+import com.lumeo.lumeo.models.GrupoModel;
+import com.lumeo.lumeo.models.TipoTransaccionModel;
+import com.lumeo.lumeo.models.TransaccionGrupalModel;
+import com.lumeo.lumeo.models.TransaccionModel;
+import com.lumeo.lumeo.models.usuarioModel;
+import com.lumeo.lumeo.repositories.CategoriaRepository;
+import com.lumeo.lumeo.repositories.DivisaRepository;
+import com.lumeo.lumeo.repositories.GrupoRepository;
+import com.lumeo.lumeo.repositories.MetaAhorroRepository;
+import com.lumeo.lumeo.repositories.TipoTransaccionRepository;
+import com.lumeo.lumeo.repositories.TransaccionGrupalRepository;
+import com.lumeo.lumeo.repositories.TransaccionRepository;
+import com.lumeo.lumeo.repositories.UsuarioRepository;
+import com.lumeo.lumeo.services.ConversionDivisaService;
+import com.lumeo.lumeo.services.GraficosService;
+import com.lumeo.lumeo.services.ResumenFinancieroService;
+import com.lumeo.lumeo.services.TasaCambioClient;
+import com.lumeo.lumeo.services.TransaccionGrupalService;
+import com.lumeo.lumeo.services.TransaccionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Datos sintéticos y servicios cableados con repositorios en memoria
+ *
+ * Reparto de los datos (semilla fija para que las ejecuciones sean comparables):
+ * - usuario 1 con divisa EUR, que es quien consulta
+ * - 60% de las transacciones en EUR y el resto repartidas entre USD, GBP, MXN y JPY
+ * - 70% gastos, 30% ingresos; 15% compartidas donde el usuario 1 es destinatario
+ * - fechas repartidas en los últimos 12 meses
+ */
+final class DatosSinteticos {
+
+    static final long ID_USUARIO = 1L;
+    static final long ID_GRUPO = 1L;
+
+    private static final String[] ISOS = {"EUR", "USD", "GBP", "MXN", "JPY"};
+    private static final double[] TASAS_DESDE_EUR = {1.0, 1.08, 0.85, 18.5, 162.0};
+
+    final Map<Long, DivisaModel> divisas = new LinkedHashMap<>();
+    final Map<Long, CategoriaModel> categorias = new LinkedHashMap<>();
+    final Map<Long, TipoTransaccionModel> tipos = new LinkedHashMap<>();
+    final Map<Long, EstadoTransaccionModel> estados = new LinkedHashMap<>();
+    final Map<Long, usuarioModel> usuarios = new LinkedHashMap<>();
+    final Map<Long, GrupoModel> grupos = new LinkedHashMap<>();
+    final List<TransaccionModel> transacciones = new ArrayList<>();
+    final List<TransaccionGrupalModel> transaccionesGrupales = new ArrayList<>();
+
+    DatosSinteticos(int numeroTransacciones) {
+        Random random = new Random(42);
+        LocalDate hoy = LocalDate.now();
+
+        for (int i = 0; i < ISOS.length; i++) {
+            long id = i + 1;
+            divisas.put(id, new DivisaModel(id, ISOS[i], ISOS[i], ISOS[i], "DESPUES"));
+        }
+        for (long id = 1; id <= 12; id++) {
+            categorias.put(id, new CategoriaModel(id, "Categoría " + id, id > 10, null, "icono", "#36A2EB", null));
+        }
+        tipos.put(1L, new TipoTransaccionModel(1L, "Ingreso"));
+        tipos.put(2L, new TipoTransaccionModel(2L, "Gasto"));
+        estados.put(1L, new EstadoTransaccionModel(1L, "Pendiente"));
+        estados.put(3L, new EstadoTransaccionModel(3L, "Completada"));
+
+        for (long id = 1; id <= 20; id++) {
+            usuarioModel usuario = new usuarioModel();
+            usuario.setId(id);
+            usuario.setNombreUsuario("usuario" + id);
+            usuario.setIdDivisa(1L);
+            usuarios.put(id, usuario);
+        }
+        grupos.put(ID_GRUPO, new GrupoModel(ID_GRUPO, "Piso compartido", "Gastos del piso", ID_USUARIO));
+
+        for (long id = 1; id <= numeroTransacciones; id++) {
+            TransaccionModel t = new TransaccionModel();
+            boolean compartida = random.nextDouble() < 0.15;
+            long idTipo = random.nextDouble() < 0.7 ? 2L : 1L;
+            CategoriaModel categoria = categorias.get(1L + random.nextInt(categorias.size()));
+
+            t.setId(id);
+            t.setTitulo("Transacción " + id);
+            t.setImporte(Math.round(random.nextDouble() * 50000) / 100.0);
+            t.setIdDivisaOriginal(divisaAleatoria(random));
+            t.setFechaTransaccion(hoy.minusDays(random.nextInt(365)));
+            t.setNota(random.nextBoolean() ? "Nota de la transacción " + id : null);
+            t.setIdUsuario(compartida ? 2L + random.nextInt(19) : ID_USUARIO);
+            t.setIdCategoria(categoria.getId());
+            t.setCategoria(categoria);
+            t.setIdTipo(idTipo);
+            t.setTipoTransaccion(tipos.get(idTipo));
+            t.setIdEstado(3L);
+            t.setEstadoTransaccion(estados.get(3L));
+            if (compartida) {
+                t.setIdDestinatario(ID_USUARIO);
+                t.setImporteDestinatario(Math.round(t.getImporte() * 50) / 100.0);
+            }
+            transacciones.add(t);
+        }
+
+        for (long id = 1; id <= Math.max(1, numeroTransacciones / 10); id++) {
+            TransaccionGrupalModel tg = new TransaccionGrupalModel();
+            tg.setId(id);
+            tg.setTitulo("Gasto grupal " + id);
+            tg.setImporte(Math.round(random.nextDouble() * 30000) / 100.0);
+            tg.setFechaTransaccion(hoy.minusDays(random.nextInt(365)));
+            tg.setIdGrupo(ID_GRUPO);
+            tg.setIdCategoria(1L + random.nextInt(10));
+            tg.setIdTipo(2L);
+            tg.setIdDivisaOriginal(divisaAleatoria(random));
+            transaccionesGrupales.add(tg);
+        }
+    }
+
+    private long divisaAleatoria(Random random) {
+        return random.nextDouble() < 0.6 ? 1L : 2L + random.nextInt(ISOS.length - 1);
+    }
+
+    /**
+     * Deja el logging de la aplicación en INFO, como en producción
+     * (sin configuración, logback escribe todo a partir de DEBUG)
+     */
+    static void nivelLogProduccion() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.lumeo.lumeo")).setLevel(Level.INFO);
+    }
+
+    // ----- Repositorios en memoria -----
+
+    DivisaRepository divisaRepository() {
+        return RepositorioStub.de(DivisaRepository.class).entidades(divisas).crear();
+    }
+
+    UsuarioRepository usuarioRepository() {
+        return RepositorioStub.de(UsuarioRepository.class).entidades(usuarios).crear();
+    }
+
+    TransaccionRepository transaccionRepository() {
+        Function<Object[], Object> deUsuario = args -> transacciones.stream()
+            .filter(t -> t.getIdUsuario().equals(args[0]) || args[1].equals(t.getIdDestinatario()))
+            .collect(Collectors.toList());
+        Function<Object[], Object> deUsuarioEntreFechas = args -> transacciones.stream()
+            .filter(t -> t.getIdUsuario().equals(args[0]) || args[1].equals(t.getIdDestinatario()))
+            .filter(t -> !t.getFechaTransaccion().isBefore((LocalDate) args[2])
+                      && !t.getFechaTransaccion().isAfter((LocalDate) args[3]))
+            .collect(Collectors.toList());
+
+        return RepositorioStub.de(TransaccionRepository.class)
+            .consulta("findByIdUsuarioOrIdDestinatario", deUsuario)
+            .consulta("findByIdUsuarioOrIdDestinatarioWithRelations", deUsuario)
+            .consulta("findByIdUsuarioOrIdDestinatarioAndFechaBetween", deUsuarioEntreFechas)
+            .consulta("findByIdUsuarioOrIdDestinatarioAndFechaBetweenWithCategoria", deUsuarioEntreFechas)
+            .crear();
+    }
+
+    TransaccionGrupalRepository transaccionGrupalRepository() {
+        return RepositorioStub.de(TransaccionGrupalRepository.class)
+            .consulta("findByIdGrupo", args -> transaccionesGrupales)
+            .crear();
+    }
+
+    // ----- Servicios -----
+
+    /**
+     * Servicio de conversión con la API de tasas simulada (responde al instante)
+     */
+    ConversionDivisaService conversionDivisaService() {
+        ConversionDivisaService servicio = new ConversionDivisaService();
+        ReflectionTestUtils.setField(servicio, "divisaRepository", divisaRepository());
+        ReflectionTestUtils.setField(servicio, "transaccionRepository", transaccionRepository());
+        ReflectionTestUtils.setField(servicio, "metaAhorroRepository", RepositorioStub.de(MetaAhorroRepository.class).crear());
+        ReflectionTestUtils.setField(servicio, "tasaCambioClient", new TasaCambioClientStub());
+        ReflectionTestUtils.setField(servicio, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(servicio, "registrarMetricas");
+        return servicio;
+    }
+
+    ResumenFinancieroService resumenFinancieroService(ConversionDivisaService conversion) {
+        ResumenFinancieroService servicio = new ResumenFinancieroService();
+        cablearComunes(servicio, conversion);
+        return servicio;
+    }
+
+    GraficosService graficosService(ConversionDivisaService conversion) {
+        GraficosService servicio = new GraficosService();
+        cablearComunes(servicio, conversion);
+        return servicio;
+    }
+
+    TransaccionService transaccionService(ConversionDivisaService conversion) {
+        TransaccionService servicio = new TransaccionService();
+        cablearComunes(servicio, conversion);
+        return servicio;
+    }
+
+    TransaccionGrupalService transaccionGrupalService(ConversionDivisaService conversion) {
+        TransaccionGrupalService servicio = new TransaccionGrupalService();
+        cablearComunes(servicio, conversion);
+        ReflectionTestUtils.setField(servicio, "transaccionGrupalRepository", transaccionGrupalRepository());
+        ReflectionTestUtils.setField(servicio, "grupoRepository", RepositorioStub.de(GrupoRepository.class).entidades(grupos).crear());
+        ReflectionTestUtils.setField(servicio, "categoriaRepository", RepositorioStub.de(CategoriaRepository.class).entidades(categorias).crear());
+        ReflectionTestUtils.setField(servicio, "tipoTransaccionRepository", RepositorioStub.de(TipoTransaccionRepository.class).entidades(tipos).crear());
+        return servicio;
+    }
+
+    private void cablearComunes(Object servicio, ConversionDivisaService conversion) {
+        ReflectionTestUtils.setField(servicio, "transaccionRepository", transaccionRepository());
+        ReflectionTestUtils.setField(servicio, "usuarioRepository", usuarioRepository());
+        ReflectionTestUtils.setField(servicio, "divisaRepository", divisaRepository());
+        ReflectionTestUtils.setField(servicio, "conversionDivisaService", conversion);
+    }
+
+    /**
+     * API de tasas simulada con tasas fijas entre las divisas sintéticas
+     */
+    static final class TasaCambioClientStub extends TasaCambioClient {
+
+        TasaCambioClientStub() {
+            super("http://localhost/", 1000, 1000);
+        }
+
+        @Override
+        public CompletableFuture<JsonNode> obtenerTasas(String isoOrigen) {
+            double desdeEur = 1.0;
+            for (int i = 0; i < ISOS.length; i++) {
+                if (ISOS[i].equals(isoOrigen)) {
+                    desdeEur = TASAS_DESDE_EUR[i];
+                }
+            }
+            ObjectNode rates = JsonNodeFactory.instance.objectNode();
+            for (int i = 0; i < ISOS.length; i++) {
+                rates.put(ISOS[i], TASAS_DESDE_EUR[i] / desdeEur);
+            }
+            return CompletableFuture.completedFuture(rates);
+        }
+    }
+}
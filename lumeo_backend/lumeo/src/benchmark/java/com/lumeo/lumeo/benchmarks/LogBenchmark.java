@@ -0,0 +1,110 @@
+package com.lumeo.lumeo.benchmarks;
+
+import com.lumeo.lumeo.util.LimitadorLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del logging en el bucle por transacción de ResumenFinancieroService
+ * - systemOut: los println por fila que había antes (concatenación + PrintStream sincronizado)
+ * - slf4jTrace: los log.trace por fila actuales, con TRACE desactivado (nivel INFO)
+ * - slf4jMuestreado: un evento frecuente a nivel INFO con LimitadorLog
+ *   (1 de cada 1000 y como mucho 10 por segundo)
+ *
+ * La salida de systemOut va a un stream nulo con autoflush, así que mide la sincronización
+ * y la construcción de cadenas pero no la escritura en el terminal: es una cota inferior
+ * del coste real
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LogBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger("com.lumeo.lumeo.benchmarks.LogBenchmark");
+
+    private static final LimitadorLog MUESTREO = LimitadorLog.muestreoConMaximo(1000, 10, Duration.ofSeconds(1));
+
+    @Param({"500"})
+    private int transacciones;
+
+    private long[] ids;
+    private double[] importes;
+    private PrintStream salida;
+
+    @Setup
+    public void preparar() {
+        // Mismo nivel que en producción (logging.level.com.lumeo.lumeo=INFO)
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.lumeo.lumeo"))
+            .setLevel(ch.qos.logback.classic.Level.INFO);
+
+        ids = new long[transacciones];
+        importes = new double[transacciones];
+        for (int i = 0; i < transacciones; i++) {
+            ids[i] = 1000 + i;
+            importes[i] = (i * 37 % 500) + 0.99;
+        }
+        salida = new PrintStream(new BufferedOutputStream(OutputStream.nullOutputStream()), true);
+    }
+
+    @Benchmark
+    public double systemOut() {
+        double total = 0;
+        for (int i = 0; i < transacciones; i++) {
+            salida.println("🔍 Procesando transacción: " + ids[i] + " - Gasto " + i);
+            salida.println("👤 Usuario es CREADOR, usando importe: " + importes[i]);
+            salida.println("💱 Convertido de USD a EUR: " + importes[i] + " → " + importes[i] * 0.92);
+            salida.println("💰 Importe: " + importes[i] + ", Tipo: " + 2L);
+            total += importes[i];
+            salida.println("✅ Gasto agregado: " + importes[i] + " | Total gastos: " + total);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double slf4jTrace() {
+        final boolean trazar = log.isTraceEnabled();
+        double total = 0;
+        for (int i = 0; i < transacciones; i++) {
+            if (trazar) {
+                log.trace("Transacción {}: convertido de {} a {}: {} → {}", ids[i], "USD", "EUR", importes[i], importes[i] * 0.92);
+                log.trace("Transacción {} ({}): importe={}, tipo={}", ids[i], "creador", importes[i], 2L);
+            }
+            total += importes[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double slf4jMuestreado() {
+        double total = 0;
+        for (int i = 0; i < transacciones; i++) {
+            if (MUESTREO.permitir()) {
+                log.info("Usando caché de tasas para {} ({} omitidos)", "USD", MUESTREO.omitidos());
+            }
+            total += importes[i];
+        }
+        return total;
+    }
+}
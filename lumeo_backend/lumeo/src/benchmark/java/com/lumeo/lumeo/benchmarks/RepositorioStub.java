@@ -0,0 +1,84 @@
+package com.lumeo.lumeo.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Repositorio Spring Data falso en memoria para los benchmarks
+ * - findById y findAllById se resuelven con el mapa de entidades por ID
+ * - las consultas registradas con consulta(...) devuelven lo que indique la función
+ * - los métodos default de la interfaz se ejecutan tal cual
+ * - cualquier otro método lanza UnsupportedOperationException
+ */
+final class RepositorioStub<R> {
+
+    private final Class<R> tipo;
+    private final Map<Object, Object> porId = new HashMap<>();
+    private final Map<String, Function<Object[], Object>> consultas = new HashMap<>();
+
+    private RepositorioStub(Class<R> tipo) {
+        this.tipo = tipo;
+    }
+
+    static <R> RepositorioStub<R> de(Class<R> tipo) {
+        return new RepositorioStub<>(tipo);
+    }
+
+    RepositorioStub<R> entidades(Map<?, ?> entidades) {
+        porId.putAll(entidades);
+        return this;
+    }
+
+    RepositorioStub<R> consulta(String metodo, Function<Object[], Object> respuesta) {
+        consultas.put(metodo, respuesta);
+        return this;
+    }
+
+    R crear() {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objeto(proxy, method, args);
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            Function<Object[], Object> consulta = consultas.get(method.getName());
+            if (consulta != null) {
+                return consulta.apply(args);
+            }
+            if (method.getName().equals("findById")) {
+                return Optional.ofNullable(porId.get(args[0]));
+            }
+            if (method.getName().equals("findAllById")) {
+                List<Object> encontradas = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                    Object entidad = porId.get(id);
+                    if (entidad != null) {
+                        encontradas.add(entidad);
+                    }
+                }
+                return encontradas;
+            }
+            throw new UnsupportedOperationException(tipo.getSimpleName() + "." + method.getName() + " no está simulado");
+        };
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler));
+    }
+
+    private Object objeto(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "RepositorioStub(" + tipo.getSimpleName() + ")";
+        }
+    }
+}
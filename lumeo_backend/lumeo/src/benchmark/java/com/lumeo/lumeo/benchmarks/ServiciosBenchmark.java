@@ -0,0 +1,110 @@
+package com.lumeo.lumeo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lumeo.lumeo.dtos.EvolucionMensualDTO;
+import com.lumeo.lumeo.dtos.GastoPorCategoriaDTO;
+import com.lumeo.lumeo.dtos.ResumenFinancieroDTO;
+import com.lumeo.lumeo.dtos.TransaccionDTO;
+import com.lumeo.lumeo.dtos.TransaccionGrupalDTO;
+import com.lumeo.lumeo.services.ConversionDivisaService;
+import com.lumeo.lumeo.services.GraficosService;
+import com.lumeo.lumeo.services.ResumenFinancieroService;
+import com.lumeo.lumeo.services.TransaccionGrupalService;
+import com.lumeo.lumeo.services.TransaccionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rutas calientes de los servicios con datos sintéticos y repositorios en memoria
+ * (ver DatosSinteticos). No hay base de datos ni red: mide solo el trabajo en la JVM
+ * (bucles de agregación, conversión con tasas en caché, mapeo a DTO y serialización)
+ *
+ * Ejecutar con:
+ *   mvn -Pbenchmarks -DskipTests test-compile exec:exec -Djmh.args=ServiciosBenchmark
+ * y comparar target/jmh-result.json entre versiones
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiciosBenchmark {
+
+    @Param({"100", "1000"})
+    private int transacciones;
+
+    private ConversionDivisaService conversionDivisaService;
+    private ResumenFinancieroService resumenFinancieroService;
+    private GraficosService graficosService;
+    private TransaccionService transaccionService;
+    private TransaccionGrupalService transaccionGrupalService;
+
+    private ObjectMapper objectMapper;
+    private List<TransaccionDTO> transaccionesDTO;
+
+    @Setup
+    public void preparar() {
+        DatosSinteticos.nivelLogProduccion();
+        DatosSinteticos datos = new DatosSinteticos(transacciones);
+
+        conversionDivisaService = datos.conversionDivisaService();
+        resumenFinancieroService = datos.resumenFinancieroService(conversionDivisaService);
+        graficosService = datos.graficosService(conversionDivisaService);
+        transaccionService = datos.transaccionService(conversionDivisaService);
+        transaccionGrupalService = datos.transaccionGrupalService(conversionDivisaService);
+
+        // Mismo ObjectMapper que configura Spring Boot para los controladores (módulos JSR-310, etc.)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        transaccionesDTO = transaccionService.findByIdUsuarioConvertidas(DatosSinteticos.ID_USUARIO);
+    }
+
+    @Benchmark
+    public Double convertirMonto() {
+        return conversionDivisaService.convertirMonto(125.50, "USD", "EUR");
+    }
+
+    @Benchmark
+    public ResumenFinancieroDTO calcularResumenFinanciero() {
+        return resumenFinancieroService.calcularResumenFinanciero(DatosSinteticos.ID_USUARIO);
+    }
+
+    @Benchmark
+    public List<GastoPorCategoriaDTO> obtenerGastosPorCategoria() {
+        return graficosService.obtenerGastosPorCategoria(DatosSinteticos.ID_USUARIO);
+    }
+
+    @Benchmark
+    public List<EvolucionMensualDTO> obtenerEvolucionMensual() {
+        return graficosService.obtenerEvolucionMensual(DatosSinteticos.ID_USUARIO, 6);
+    }
+
+    @Benchmark
+    public List<TransaccionDTO> findByIdUsuarioConvertidas() {
+        return transaccionService.findByIdUsuarioConvertidas(DatosSinteticos.ID_USUARIO);
+    }
+
+    @Benchmark
+    public List<TransaccionGrupalDTO> findByIdGrupoConvertidas() {
+        return transaccionGrupalService.findByIdGrupoConvertidas(DatosSinteticos.ID_GRUPO, DatosSinteticos.ID_USUARIO);
+    }
+
+    @Benchmark
+    public byte[] serializarTransaccionesDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transaccionesDTO);
+    }
+}
@@ -0,0 +1,111 @@
+package com.lumeo.lumeo.carga;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Datos generados que necesita la prueba de carga (escenario.csv)
+ * Los usuarios se guardan ordenados de más a menos activo, para que la prueba
+ * reparta las peticiones con el mismo sesgo con el que se generaron los datos
+ *
+ * Formato:
+ *   usuario,<id>,<uid>
+ *   grupo,<id>,<id de un miembro>
+ */
+final class Escenario {
+
+    record Usuario(long id, UUID uid) {
+    }
+
+    record Grupo(long id, long idMiembro) {
+    }
+
+    final List<Usuario> usuarios = new ArrayList<>();
+    final List<Grupo> grupos = new ArrayList<>();
+
+    void guardar(Path fichero) throws IOException {
+        Files.createDirectories(fichero.toAbsolutePath().getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(fichero, StandardCharsets.UTF_8))) {
+            for (Usuario u : usuarios) {
+                out.println("usuario," + u.id() + "," + u.uid());
+            }
+            for (Grupo g : grupos) {
+                out.println("grupo," + g.id() + "," + g.idMiembro());
+            }
+        }
+    }
+
+    static Escenario cargar(Path fichero) throws IOException {
+        Escenario escenario = new Escenario();
+        for (String linea : Files.readAllLines(fichero, StandardCharsets.UTF_8)) {
+            String[] campos = linea.split(",");
+            if (campos[0].equals("usuario")) {
+                escenario.usuarios.add(new Usuario(Long.parseLong(campos[1]), UUID.fromString(campos[2])));
+            } else if (campos[0].equals("grupo")) {
+                escenario.grupos.add(new Grupo(Long.parseLong(campos[1]), Long.parseLong(campos[2])));
+            }
+        }
+        if (escenario.usuarios.isEmpty()) {
+            throw new IllegalStateException("El escenario " + fichero + " no tiene usuarios; ejecuta antes GeneradorDatos");
+        }
+        return escenario;
+    }
+
+    /**
+     * Muestreo con distribución de Zipf sobre posiciones 0..n-1
+     * (la posición 0 es la más frecuente). Con exponente 0 es uniforme
+     */
+    static final class Zipf {
+        private final double[] acumulado;
+
+        Zipf(int n, double exponente) {
+            acumulado = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += 1.0 / Math.pow(i + 1, exponente);
+                acumulado[i] = total;
+            }
+            for (int i = 0; i < n; i++) {
+                acumulado[i] /= total;
+            }
+        }
+
+        int siguiente(Random random) {
+            double r = random.nextDouble();
+            int bajo = 0;
+            int alto = acumulado.length - 1;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (acumulado[medio] < r) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+    }
+
+    /**
+     * Lee argumentos clave=valor de la línea de comandos
+     */
+    static Map<String, String> argumentos(String[] args) {
+        Map<String, String> mapa = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual > 0) {
+                mapa.put(arg.substring(0, igual).replaceFirst("^--", ""), arg.substring(igual + 1));
+            }
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,506 @@
+package com.lumeo.lumeo.carga;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Genera datos sintéticos a escala de producción en una base de datos PostgreSQL
+ * (usuario, categoria, transaccion, grupo, usuario_grupo, transaccion_grupal,
+ * presupuesto y meta_ahorro) y escribe escenario.csv para PruebaCarga
+ *
+ * Distribuciones:
+ * - transacciones por usuario con sesgo Zipf (pocos usuarios muy activos, muchos casi inactivos)
+ * - 15% de transacciones compartidas (id_destinatario) con otro usuario
+ * - 60% en la divisa del usuario, el resto en otras divisas
+ * - 70% gastos / 30% ingresos, fechas de los últimos 24 meses con más peso en los recientes
+ * - grupos de 2 a 8 miembros con transacciones grupales repartidas entre los miembros
+ *
+ * Todos los usuarios generados tienen nombre_usuario con el prefijo "carga_", así
+ * modo=limpiar puede borrarlos junto con sus datos
+ *
+ * Ejecutar con:
+ *   mvn -Pbenchmarks -DskipTests test-compile exec:exec@generar-datos -Dcarga.args="usuarios=1000 transacciones=200000"
+ *
+ * Argumentos (clave=valor):
+ *   url, usuario, password   conexión (por defecto DATABASE_URL, DATABASE_USERNAME, DATABASE_PASSWORD)
+ *   usuarios=1000            número de usuarios
+ *   transacciones=100000     número de transacciones individuales
+ *   grupos=usuarios/5        número de grupos
+ *   sesgo=1.1                exponente Zipf del reparto de actividad entre usuarios
+ *   semilla=42               semilla aleatoria (mismos argumentos → mismos datos, con fechas relativas
+ *                            al día de ejecución; los ids salen de las secuencias de la base de datos)
+ *                            Para repetir una semilla hay que borrar antes sus datos con modo=limpiar
+ *   escenario=target/carga/escenario.csv
+ *   modo=generar|limpiar
+ */
+public class GeneradorDatos {
+
+    private static final String PREFIJO = "carga_";
+    private static final int TAMANO_LOTE = 1000;
+    private static final String[] MESES = {
+        "Enero", "Febrero", "Marzo", "Abril", "Mayo", "Junio",
+        "Julio", "Agosto", "Septiembre", "Octubre", "Noviembre", "Diciembre"
+    };
+
+    private final Connection conexion;
+    private final Random random;
+    private final LocalDate hoy = LocalDate.now();
+
+    private List<Long> divisas;
+    private List<Long> categoriasGlobales;
+
+    GeneradorDatos(Connection conexion, long semilla) {
+        this.conexion = conexion;
+        this.random = new Random(semilla);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = Escenario.argumentos(args);
+        String url = a.getOrDefault("url", System.getenv().getOrDefault("DATABASE_URL", "jdbc:postgresql://localhost:5432/postgres"));
+        String usuario = a.getOrDefault("usuario", System.getenv().getOrDefault("DATABASE_USERNAME", "postgres"));
+        String password = a.getOrDefault("password", System.getenv().getOrDefault("DATABASE_PASSWORD", "password"));
+
+        // reWriteBatchedInserts convierte los lotes en INSERT multi-fila
+        String urlLotes = url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+
+        try (Connection conexion = DriverManager.getConnection(urlLotes, usuario, password)) {
+            conexion.setAutoCommit(false);
+            GeneradorDatos generador = new GeneradorDatos(conexion, Long.parseLong(a.getOrDefault("semilla", "42")));
+
+            if ("limpiar".equals(a.get("modo"))) {
+                generador.limpiar();
+                conexion.commit();
+                return;
+            }
+
+            int usuarios = Integer.parseInt(a.getOrDefault("usuarios", "1000"));
+            int transacciones = Integer.parseInt(a.getOrDefault("transacciones", "100000"));
+            int grupos = Integer.parseInt(a.getOrDefault("grupos", String.valueOf(Math.max(1, usuarios / 5))));
+            double sesgo = Double.parseDouble(a.getOrDefault("sesgo", "1.1"));
+            Path fichero = Path.of(a.getOrDefault("escenario", "target/carga/escenario.csv"));
+
+            long inicio = System.nanoTime();
+            Escenario escenario = generador.generar(usuarios, transacciones, grupos, sesgo);
+            conexion.commit();
+            escenario.guardar(fichero);
+
+            System.out.printf("Generados %d usuarios, %d transacciones y %d grupos en %.1f s. Escenario: %s%n",
+                              usuarios, transacciones, grupos, (System.nanoTime() - inicio) / 1e9, fichero.toAbsolutePath());
+        }
+    }
+
+    Escenario generar(int numeroUsuarios, int numeroTransacciones, int numeroGrupos, double sesgo) throws SQLException {
+        prepararReferencias();
+
+        // Etiqueta de la ejecución en nombres de usuario y grupos, también derivada de la semilla
+        String ejecucion = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+        List<Escenario.Usuario> usuarios = insertarUsuarios(numeroUsuarios, ejecucion);
+        List<Long> idsUsuario = usuarios.stream().map(Escenario.Usuario::id).toList();
+
+        insertarCategoriasPersonalizadas(idsUsuario);
+        insertarTransacciones(idsUsuario, numeroTransacciones, new Escenario.Zipf(idsUsuario.size(), sesgo));
+        List<Escenario.Grupo> grupos = insertarGrupos(idsUsuario, numeroGrupos, ejecucion);
+        insertarPresupuestos(idsUsuario);
+        insertarMetasAhorro(idsUsuario);
+
+        Escenario escenario = new Escenario();
+        escenario.usuarios.addAll(usuarios);
+        escenario.grupos.addAll(grupos);
+        return escenario;
+    }
+
+    /**
+     * Usa las divisas, tipos, estados y categorías globales existentes y crea los que falten
+     */
+    private void prepararReferencias() throws SQLException {
+        divisas = ids("SELECT id FROM divisa ORDER BY id");
+        if (divisas.isEmpty()) {
+            try (PreparedStatement ps = conexion.prepareStatement(
+                    "INSERT INTO divisa (id, descripcion, iso, simbolo, posicion_simbolo) VALUES (?, ?, ?, ?, ?)")) {
+                String[][] valores = {
+                    {"Euro", "EUR", "€", "DESPUES"}, {"Dólar estadounidense", "USD", "$", "ANTES"},
+                    {"Libra esterlina", "GBP", "£", "ANTES"}, {"Peso mexicano", "MXN", "$", "ANTES"},
+                    {"Yen", "JPY", "¥", "ANTES"}
+                };
+                for (int i = 0; i < valores.length; i++) {
+                    ps.setLong(1, i + 1);
+                    for (int j = 0; j < 4; j++) {
+                        ps.setString(j + 2, valores[i][j]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            divisas = ids("SELECT id FROM divisa ORDER BY id");
+        }
+
+        // El código asume tipo 1 = ingreso, 2 = gasto y estado 3 = completada
+        ejecutar("INSERT INTO tipo_transaccion (id, descripcion) VALUES (1, 'Ingreso'), (2, 'Gasto') ON CONFLICT (id) DO NOTHING");
+        ejecutar("INSERT INTO estado_transaccion (id, descripcion) VALUES (1, 'Pendiente'), (2, 'En proceso'), (3, 'Completada') " +
+                 "ON CONFLICT (id) DO NOTHING");
+
+        categoriasGlobales = ids("SELECT id FROM categoria WHERE es_personalizada = false AND id_usuario IS NULL ORDER BY id");
+        if (categoriasGlobales.isEmpty()) {
+            String[] nombres = {"Comida", "Transporte", "Ocio", "Hogar", "Salud", "Ropa", "Educación", "Viajes", "Suscripciones", "Otros"};
+            try (PreparedStatement ps = conexion.prepareStatement(
+                    "INSERT INTO categoria (nombre, es_personalizada, icono, color) VALUES (?, false, ?, ?)")) {
+                for (int i = 0; i < nombres.length; i++) {
+                    ps.setString(1, nombres[i]);
+                    ps.setString(2, "categoria");
+                    ps.setString(3, String.format("#%06X", random.nextInt(0xFFFFFF)));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            categoriasGlobales = ids("SELECT id FROM categoria WHERE es_personalizada = false AND id_usuario IS NULL ORDER BY id");
+        }
+    }
+
+    private List<Escenario.Usuario> insertarUsuarios(int numero, String ejecucion) throws SQLException {
+        List<Escenario.Usuario> usuarios = new ArrayList<>(numero);
+        List<Long> ids = reservarIds("usuario", numero);
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO usuario (id, email, nombre, apellido, idioma, nombre_usuario, id_divisa, uid) " +
+                "OVERRIDING SYSTEM VALUE VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int pendientes = 0;
+            for (int i = 0; i < numero; i++) {
+                UUID uid = uuidAleatorio();
+                String nombreUsuario = PREFIJO + ejecucion + "_" + i;
+                ps.setLong(1, ids.get(i));
+                ps.setString(2, nombreUsuario + "@carga.lumeo.test");
+                ps.setString(3, "Usuario");
+                ps.setString(4, "Carga " + i);
+                ps.setString(5, random.nextDouble() < 0.8 ? "es" : "en");
+                ps.setString(6, nombreUsuario);
+                // La mayoría usa la primera divisa (EUR)
+                ps.setLong(7, random.nextDouble() < 0.7 ? divisas.get(0) : aleatorio(divisas));
+                ps.setObject(8, uid);
+                ps.addBatch();
+                pendientes = lote(ps, pendientes);
+                usuarios.add(new Escenario.Usuario(ids.get(i), uid));
+            }
+            ps.executeBatch();
+        }
+        return usuarios;
+    }
+
+    private void insertarCategoriasPersonalizadas(List<Long> usuarios) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO categoria (nombre, es_personalizada, id_usuario, icono, color) VALUES (?, true, ?, ?, ?)")) {
+            int pendientes = 0;
+            for (Long idUsuario : usuarios) {
+                if (random.nextDouble() < 0.2) {
+                    ps.setString(1, "Personalizada " + idUsuario);
+                    ps.setLong(2, idUsuario);
+                    ps.setString(3, "estrella");
+                    ps.setString(4, String.format("#%06X", random.nextInt(0xFFFFFF)));
+                    ps.addBatch();
+                    pendientes = lote(ps, pendientes);
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertarTransacciones(List<Long> usuarios, int numero, Escenario.Zipf actividad) throws SQLException {
+        try (PreparedStatement ps = prepararInsertTransaccion()) {
+            int pendientes = 0;
+            for (int i = 0; i < numero; i++) {
+                long idUsuario = usuarios.get(actividad.siguiente(random));
+                Long idDestinatario = null;
+                if (usuarios.size() > 1 && random.nextDouble() < 0.15) {
+                    do {
+                        idDestinatario = aleatorio(usuarios);
+                    } while (idDestinatario == idUsuario);
+                }
+                double importe = importeAleatorio();
+                rellenarTransaccion(ps, "Transacción " + i, importe, idUsuario, random.nextDouble() < 0.7 ? 2L : 1L,
+                                    idDestinatario, idDestinatario != null ? redondear(importe * (0.3 + random.nextDouble() * 0.4)) : null,
+                                    null, fechaAleatoria());
+                ps.addBatch();
+                pendientes = lote(ps, pendientes);
+                if (i > 0 && i % 50000 == 0) {
+                    System.out.println("  " + i + " transacciones...");
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private List<Escenario.Grupo> insertarGrupos(List<Long> usuarios, int numero, String ejecucion) throws SQLException {
+        List<Escenario.Grupo> grupos = new ArrayList<>(numero);
+        List<List<Long>> miembrosPorGrupo = new ArrayList<>(numero);
+
+        List<Long> ids = reservarIds("grupo", numero);
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO grupo (id, nombre, descripcion, id_creador) OVERRIDING SYSTEM VALUE VALUES (?, ?, ?, ?)")) {
+            int pendientes = 0;
+            for (int i = 0; i < numero; i++) {
+                List<Long> miembros = new ArrayList<>(usuarios);
+                Collections.shuffle(miembros, random);
+                miembros = new ArrayList<>(miembros.subList(0, Math.min(miembros.size(), 2 + random.nextInt(7))));
+                miembrosPorGrupo.add(miembros);
+
+                ps.setLong(1, ids.get(i));
+                ps.setString(2, PREFIJO + ejecucion + " grupo " + i);
+                ps.setString(3, "Grupo generado para pruebas de carga");
+                ps.setLong(4, miembros.get(0));
+                ps.addBatch();
+                pendientes = lote(ps, pendientes);
+                grupos.add(new Escenario.Grupo(ids.get(i), miembros.get(0)));
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = conexion.prepareStatement("INSERT INTO usuario_grupo (id_usuario, id_grupo) VALUES (?, ?)")) {
+            int pendientes = 0;
+            for (int i = 0; i < grupos.size(); i++) {
+                for (Long idUsuario : miembrosPorGrupo.get(i)) {
+                    ps.setLong(1, idUsuario);
+                    ps.setLong(2, grupos.get(i).id());
+                    ps.addBatch();
+                    pendientes = lote(ps, pendientes);
+                }
+            }
+            ps.executeBatch();
+        }
+
+        for (int i = 0; i < grupos.size(); i++) {
+            insertarTransaccionesGrupales(grupos.get(i).id(), miembrosPorGrupo.get(i));
+        }
+        return grupos;
+    }
+
+    /**
+     * Transacciones grupales de un grupo (entre 5 y 50) con una transacción individual por miembro
+     */
+    private void insertarTransaccionesGrupales(long idGrupo, List<Long> miembros) throws SQLException {
+        int numero = 5 + random.nextInt(46);
+        List<Double> importes = new ArrayList<>(numero);
+        List<LocalDate> fechas = new ArrayList<>(numero);
+        List<Long> ids = reservarIds("transaccion_grupal", numero);
+
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO transaccion_grupal (id, titulo, importe, fecha_transaccion, id_grupo, id_categoria, id_tipo, " +
+                "id_divisa_original, fecha_creacion) OVERRIDING SYSTEM VALUE VALUES (?, ?, ?, ?, ?, ?, 2, ?, now())")) {
+            for (int i = 0; i < numero; i++) {
+                double importe = importeAleatorio();
+                LocalDate fecha = fechaAleatoria();
+                ps.setLong(1, ids.get(i));
+                ps.setString(2, "Gasto grupal " + i);
+                ps.setDouble(3, importe);
+                ps.setDate(4, Date.valueOf(fecha));
+                ps.setLong(5, idGrupo);
+                ps.setLong(6, aleatorio(categoriasGlobales));
+                ps.setLong(7, divisas.get(0));
+                ps.addBatch();
+                importes.add(importe);
+                fechas.add(fecha);
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = prepararInsertTransaccion()) {
+            int pendientes = 0;
+            for (int i = 0; i < ids.size(); i++) {
+                double parte = redondear(importes.get(i) / miembros.size());
+                for (Long idUsuario : miembros) {
+                    rellenarTransaccion(ps, "Gasto grupal " + i, parte, idUsuario, 2L, null, null, ids.get(i), fechas.get(i));
+                    ps.addBatch();
+                    pendientes = lote(ps, pendientes);
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertarPresupuestos(List<Long> usuarios) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO presupuesto (mes, anio, cantidad, id_usuario, fecha_creacion) VALUES (?, ?, ?, ?, now())")) {
+            int pendientes = 0;
+            for (Long idUsuario : usuarios) {
+                // El 60% de los usuarios tiene presupuestos de los últimos 1 a 6 meses
+                if (random.nextDouble() < 0.6) {
+                    int meses = 1 + random.nextInt(6);
+                    for (int m = 0; m < meses; m++) {
+                        LocalDate mes = hoy.minusMonths(m);
+                        ps.setString(1, MESES[mes.getMonthValue() - 1]);
+                        ps.setString(2, String.valueOf(mes.getYear()));
+                        ps.setDouble(3, 200 + random.nextInt(30) * 50);
+                        ps.setLong(4, idUsuario);
+                        ps.addBatch();
+                        pendientes = lote(ps, pendientes);
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertarMetasAhorro(List<Long> usuarios) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO meta_ahorro (titulo, cantidad_objetivo, cantidad_actual, id_divisa_original, id_usuario, fecha_creacion) " +
+                "VALUES (?, ?, ?, ?, ?, now())")) {
+            int pendientes = 0;
+            for (Long idUsuario : usuarios) {
+                int metas = random.nextInt(4);
+                for (int m = 0; m < metas; m++) {
+                    double objetivo = 500 + random.nextInt(100) * 100;
+                    ps.setString(1, "Meta " + m);
+                    ps.setDouble(2, objetivo);
+                    ps.setDouble(3, redondear(objetivo * random.nextDouble()));
+                    ps.setLong(4, divisas.get(0));
+                    ps.setLong(5, idUsuario);
+                    ps.addBatch();
+                    pendientes = lote(ps, pendientes);
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Borra los usuarios generados (prefijo carga_) y todos sus datos
+     */
+    void limpiar() throws SQLException {
+        String usuarios = "SELECT id FROM usuario WHERE nombre_usuario LIKE '" + PREFIJO + "%'";
+        String grupos = "SELECT id FROM grupo WHERE nombre LIKE '" + PREFIJO + "%'";
+        int borradas = 0;
+        borradas += ejecutar("DELETE FROM transaccion WHERE id_usuario IN (" + usuarios + ") OR id_destinatario IN (" + usuarios + ")");
+        borradas += ejecutar("DELETE FROM transaccion_grupal WHERE id_grupo IN (" + grupos + ")");
+        borradas += ejecutar("DELETE FROM usuario_grupo WHERE id_grupo IN (" + grupos + ")");
+        borradas += ejecutar("DELETE FROM grupo WHERE nombre LIKE '" + PREFIJO + "%'");
+        borradas += ejecutar("DELETE FROM presupuesto WHERE id_usuario IN (" + usuarios + ")");
+        borradas += ejecutar("DELETE FROM meta_ahorro WHERE id_usuario IN (" + usuarios + ")");
+        borradas += ejecutar("DELETE FROM categoria WHERE id_usuario IN (" + usuarios + ")");
+        borradas += ejecutar("DELETE FROM usuario WHERE nombre_usuario LIKE '" + PREFIJO + "%'");
+        System.out.println("Borradas " + borradas + " filas de datos de carga");
+    }
+
+    // ----- Utilidades -----
+
+    private PreparedStatement prepararInsertTransaccion() throws SQLException {
+        return conexion.prepareStatement(
+            "INSERT INTO transaccion (titulo, importe, id_divisa_original, fecha_transaccion, nota, id_usuario, id_categoria, " +
+            "id_transaccion_grupal, id_tipo, id_estado, id_destinatario, importe_destinatario) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 3, ?, ?)");
+    }
+
+    private void rellenarTransaccion(PreparedStatement ps, String titulo, double importe, long idUsuario, long idTipo,
+                                     Long idDestinatario, Double importeDestinatario, Long idTransaccionGrupal,
+                                     LocalDate fecha) throws SQLException {
+        ps.setString(1, titulo);
+        ps.setDouble(2, importe);
+        ps.setLong(3, random.nextDouble() < 0.6 ? divisas.get(0) : aleatorio(divisas));
+        ps.setDate(4, Date.valueOf(fecha));
+        ps.setString(5, random.nextDouble() < 0.3 ? "Nota generada" : null);
+        ps.setLong(6, idUsuario);
+        ps.setLong(7, aleatorio(categoriasGlobales));
+        setLong(ps, 8, idTransaccionGrupal);
+        ps.setLong(9, idTipo);
+        setLong(ps, 10, idDestinatario);
+        if (importeDestinatario != null) {
+            ps.setDouble(11, importeDestinatario);
+        } else {
+            ps.setNull(11, Types.DOUBLE);
+        }
+    }
+
+    private static void setLong(PreparedStatement ps, int indice, Long valor) throws SQLException {
+        if (valor != null) {
+            ps.setLong(indice, valor);
+        } else {
+            ps.setNull(indice, Types.BIGINT);
+        }
+    }
+
+    /**
+     * Reserva ids de la secuencia de la tabla para insertar las filas con su id
+     * (como TransaccionGrupalService.insertarTransacciones): así no hace falta emparejar
+     * getGeneratedKeys() con las filas por posición, un orden que el driver no garantiza
+     */
+    private List<Long> reservarIds(String tabla, int numero) throws SQLException {
+        List<Long> ids = new ArrayList<>(numero);
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)")) {
+            ps.setString(1, tabla);
+            ps.setInt(2, numero);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private int lote(PreparedStatement ps, int pendientes) throws SQLException {
+        if (++pendientes >= TAMANO_LOTE) {
+            ps.executeBatch();
+            return 0;
+        }
+        return pendientes;
+    }
+
+    /**
+     * Importe con distribución log-normal: muchos gastos pequeños y pocos grandes (mediana ~20)
+     */
+    private double importeAleatorio() {
+        return redondear(Math.min(5000, Math.exp(3 + random.nextGaussian())));
+    }
+
+    /**
+     * Fecha de los últimos 24 meses, con más peso en los meses recientes
+     */
+    private LocalDate fechaAleatoria() {
+        double r = random.nextDouble();
+        return hoy.minusDays((long) (730 * r * r));
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    /**
+     * UUID de versión 4 sacado del Random con semilla (UUID.randomUUID() no se puede repetir)
+     */
+    private UUID uuidAleatorio() {
+        long altos = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long bajos = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(altos, bajos);
+    }
+
+    private <T> T aleatorio(List<T> lista) {
+        return lista.get(random.nextInt(lista.size()));
+    }
+
+    private List<Long> ids(String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement st = conexion.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private int ejecutar(String sql) throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            return st.executeUpdate(sql);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.lumeo.lumeo.carga;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prueba de carga HTTP contra la API, con la mezcla de llamadas de la app móvil
+ * (pantalla de inicio, movimientos, presupuestos, grupos...) sobre los datos de GeneradorDatos
+ *
+ * Modelo cerrado: N clientes concurrentes que repiten peticiones sin pausa (o con pausa
+ * si se indica). Los usuarios se eligen con el mismo sesgo Zipf que los datos, así los
+ * usuarios con más transacciones reciben más peticiones
+ *
+ * Ejecutar con la API arrancada:
+ *   mvn -Pbenchmarks -DskipTests test-compile exec:exec@prueba-carga -Dcarga.args="concurrencia=32 duracion=120"
+ *
+ * Argumentos (clave=valor):
+ *   base=http://localhost:8080   URL de la API
+ *   escenario=target/carga/escenario.csv
+ *   concurrencia=16              clientes simultáneos
+ *   calentamiento=10             segundos de calentamiento (no se miden)
+ *   duracion=60                  segundos medidos
+ *   pausa-ms=0                   pausa entre peticiones de cada cliente
+ *   escrituras=false             incluir POST /api/transacciones en la mezcla
+ *   sesgo=1.1                    exponente Zipf del reparto de peticiones entre usuarios
+ *   resultado=target/carga/resultado.json
+ *   etiqueta=                    nombre de la configuración probada (se guarda en el resultado)
+ *
+ * Al terminar se leen de /actuator/metrics los hilos vivos y el pico de hilos, la memoria
+ * heap usada y el uso de CPU de la API, para comparar configuraciones del servidor
+ * (hilos virtuales, tamaño del pool...) con src/benchmark/carga/comparar-configuraciones.sh
+ */
+public class PruebaCarga {
+
+    private static final Pattern VALOR_METRICA = Pattern.compile("\"value\"\\s*:\\s*([-0-9.Ee+]+)");
+
+    /**
+     * Una llamada de la mezcla: nombre (para el informe), peso relativo y cómo construir la petición
+     */
+    private record Llamada(String nombre, int peso, BiFunction<Contexto, Random, HttpRequest> peticion) {
+    }
+
+    private record Contexto(String base, Escenario escenario, Escenario.Zipf usuarios) {
+
+        Escenario.Usuario usuario(Random random) {
+            return escenario.usuarios.get(usuarios.siguiente(random));
+        }
+
+        HttpRequest get(String ruta) {
+            return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(Duration.ofSeconds(30)).GET().build();
+        }
+    }
+
+    /**
+     * Latencias medidas de una llamada (una instancia por cliente, se fusionan al final)
+     */
+    private static final class Medidas {
+        long[] latenciasNanos = new long[1024];
+        int total;
+        int errores;
+
+        void registrar(long nanos, boolean error) {
+            if (total == latenciasNanos.length) {
+                latenciasNanos = Arrays.copyOf(latenciasNanos, total * 2);
+            }
+            latenciasNanos[total++] = nanos;
+            if (error) {
+                errores++;
+            }
+        }
+
+        void sumar(Medidas otras) {
+            for (int i = 0; i < otras.total; i++) {
+                registrar(otras.latenciasNanos[i], false);
+            }
+            errores += otras.errores;
+        }
+
+        double percentilMs(double p) {
+            if (total == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p / 100.0 * total) - 1;
+            return latenciasNanos[Math.max(0, indice)] / 1e6;
+        }
+    }
+
+    private static List<Llamada> mezcla(boolean escrituras) {
+        List<Llamada> llamadas = new ArrayList<>(List.of(
+            // Pantalla de inicio
+            new Llamada("resumen-financiero", 15, (c, r) -> c.get("/api/usuarios/" + c.usuario(r).id() + "/resumen-financiero")),
+            new Llamada("ultimos-gastos", 15, (c, r) -> c.get("/api/transacciones/usuario/" + c.usuario(r).id() + "/ultimos-gastos")),
+            new Llamada("gastos-por-categoria", 10, (c, r) -> c.get("/api/usuarios/" + c.usuario(r).id() + "/gastos-por-categoria")),
+            new Llamada("evolucion-mensual", 10, (c, r) -> c.get("/api/usuarios/" + c.usuario(r).id() + "/evolucion-mensual?meses=6")),
+            // Movimientos y presupuestos
+            new Llamada("transacciones-usuario", 15, (c, r) -> c.get("/api/transacciones/usuario/" + c.usuario(r).id())),
+            new Llamada("transacciones-mes", 8, (c, r) -> {
+                LocalDate mes = LocalDate.now().minusMonths(r.nextInt(3));
+                return c.get("/api/transacciones/usuario/" + c.usuario(r).id() + "/mes/" + mes.getMonthValue() + "/anio/" + mes.getYear());
+            }),
+            new Llamada("presupuestos", 7, (c, r) -> c.get("/api/presupuestos/usuario/uid/" + c.usuario(r).uid())),
+            new Llamada("metas-ahorro", 5, (c, r) -> c.get("/api/metas-ahorro/usuario/uid/" + c.usuario(r).uid())),
+            // Grupos
+            new Llamada("grupos-usuario", 6, (c, r) -> c.get("/api/grupos/usuario/" + c.usuario(r).id())),
+            new Llamada("transacciones-grupo", 5, (c, r) -> {
+                Escenario.Grupo grupo = c.escenario().grupos.get(r.nextInt(c.escenario().grupos.size()));
+                return c.get("/api/transacciones-grupales/grupo/" + grupo.id() + "?idUsuario=" + grupo.idMiembro());
+            }),
+            // Datos de referencia
+            new Llamada("divisas", 2, (c, r) -> c.get("/api/divisas")),
+            new Llamada("categorias-usuario", 2, (c, r) -> c.get("/api/categorias/usuario/" + c.usuario(r).id()))
+        ));
+        if (escrituras) {
+            llamadas.add(new Llamada("crear-transaccion", 5, (c, r) -> {
+                String cuerpo = String.format(Locale.ROOT,
+                    "{\"titulo\":\"Carga\",\"importe\":%.2f,\"fechaTransaccion\":\"%s\",\"idUsuario\":%d,\"idTipo\":2,\"idEstado\":3}",
+                    1 + r.nextDouble() * 100, LocalDate.now(), c.usuario(r).id());
+                return HttpRequest.newBuilder(URI.create(c.base() + "/api/transacciones"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                    .build();
+            }));
+        }
+        return llamadas;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = Escenario.argumentos(args);
+        String base = a.getOrDefault("base", "http://localhost:8080");
+        Escenario escenario = Escenario.cargar(Path.of(a.getOrDefault("escenario", "target/carga/escenario.csv")));
+        int concurrencia = Integer.parseInt(a.getOrDefault("concurrencia", "16"));
+        long calentamiento = Long.parseLong(a.getOrDefault("calentamiento", "10"));
+        long duracion = Long.parseLong(a.getOrDefault("duracion", "60"));
+        long pausaMs = Long.parseLong(a.getOrDefault("pausa-ms", "0"));
+        boolean escrituras = Boolean.parseBoolean(a.getOrDefault("escrituras", "false"));
+        double sesgo = Double.parseDouble(a.getOrDefault("sesgo", "1.1"));
+        Path resultado = Path.of(a.getOrDefault("resultado", "target/carga/resultado.json"));
+        String etiqueta = a.getOrDefault("etiqueta", "");
+
+        List<Llamada> llamadas = mezcla(escrituras && !escenario.usuarios.isEmpty());
+        if (escenario.grupos.isEmpty()) {
+            llamadas.removeIf(l -> l.nombre().equals("transacciones-grupo"));
+        }
+        int pesoTotal = llamadas.stream().mapToInt(Llamada::peso).sum();
+
+        Contexto contexto = new Contexto(base, escenario, new Escenario.Zipf(escenario.usuarios.size(), sesgo));
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        long inicioMedida = System.nanoTime() + TimeUnit.SECONDS.toNanos(calentamiento);
+        long fin = inicioMedida + TimeUnit.SECONDS.toNanos(duracion);
+
+        System.out.printf("Prueba de carga contra %s: %d clientes, %d s de calentamiento y %d s de medida%n",
+                          base, concurrencia, calentamiento, duracion);
+
+        ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+        List<Medidas[]> medidasPorCliente = new ArrayList<>();
+        for (int c = 0; c < concurrencia; c++) {
+            Medidas[] medidas = new Medidas[llamadas.size()];
+            for (int i = 0; i < medidas.length; i++) {
+                medidas[i] = new Medidas();
+            }
+            medidasPorCliente.add(medidas);
+            long semilla = 1000L + c;
+            clientes.submit(() -> {
+                Random random = new Random(semilla);
+                while (System.nanoTime() < fin) {
+                    int indice = elegir(llamadas, pesoTotal, random);
+                    HttpRequest peticion = llamadas.get(indice).peticion().apply(contexto, random);
+                    long t0 = System.nanoTime();
+                    boolean error;
+                    try {
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        error = respuesta.statusCode() >= 500;
+                    } catch (Exception e) {
+                        error = true;
+                    }
+                    long t1 = System.nanoTime();
+                    if (t0 >= inicioMedida && t1 <= fin) {
+                        medidas[indice].registrar(t1 - t0, error);
+                    }
+                    if (pausaMs > 0) {
+                        try {
+                            Thread.sleep(pausaMs);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+        clientes.shutdown();
+        clientes.awaitTermination(calentamiento + duracion + 60, TimeUnit.SECONDS);
+
+        Map<String, Double> servidor = metricasServidor(cliente, base);
+        informe(llamadas, medidasPorCliente, duracion, etiqueta, servidor, resultado);
+    }
+
+    /**
+     * Métricas de la API al final de la prueba; las que no se puedan leer se omiten
+     */
+    private static Map<String, Double> metricasServidor(HttpClient cliente, String base) {
+        Map<String, Double> metricas = new LinkedHashMap<>();
+        Map<String, String> consultas = new LinkedHashMap<>();
+        consultas.put("hilosVivos", "jvm.threads.live");
+        consultas.put("hilosPico", "jvm.threads.peak");
+        consultas.put("heapUsadoMb", "jvm.memory.used?tag=area:heap");
+        consultas.put("cpuProceso", "process.cpu.usage");
+        consultas.forEach((nombre, metrica) -> {
+            try {
+                HttpResponse<String> respuesta = cliente.send(
+                    HttpRequest.newBuilder(URI.create(base + "/actuator/metrics/" + metrica)).timeout(Duration.ofSeconds(5)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+                Matcher valor = VALOR_METRICA.matcher(respuesta.body());
+                if (respuesta.statusCode() == 200 && valor.find()) {
+                    double v = Double.parseDouble(valor.group(1));
+                    metricas.put(nombre, nombre.endsWith("Mb") ? v / (1024 * 1024) : v);
+                }
+            } catch (Exception e) {
+                // Sin actuator la prueba sigue siendo válida, solo sin métricas del servidor
+            }
+        });
+        return metricas;
+    }
+
+    private static int elegir(List<Llamada> llamadas, int pesoTotal, Random random) {
+        int r = random.nextInt(pesoTotal);
+        for (int i = 0; i < llamadas.size(); i++) {
+            r -= llamadas.get(i).peso();
+            if (r < 0) {
+                return i;
+            }
+        }
+        return llamadas.size() - 1;
+    }
+
+    private static void informe(List<Llamada> llamadas, List<Medidas[]> medidasPorCliente, long duracion, String etiqueta,
+                                Map<String, Double> servidor, Path resultado) throws Exception {
+        Medidas global = new Medidas();
+        StringBuilder json = new StringBuilder("{\n  \"etiqueta\": \"").append(etiqueta)
+            .append("\",\n  \"duracionSegundos\": ").append(duracion).append(",\n  \"llamadas\": [\n");
+
+        System.out.printf("%n%-24s %10s %8s %9s %9s %9s %9s %9s%n",
+                          "llamada", "peticiones", "errores", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (int i = 0; i < llamadas.size(); i++) {
+            Medidas medidas = new Medidas();
+            for (Medidas[] delCliente : medidasPorCliente) {
+                medidas.sumar(delCliente[i]);
+            }
+            global.sumar(medidas);
+            Arrays.sort(medidas.latenciasNanos, 0, medidas.total);
+            linea(llamadas.get(i).nombre(), medidas, duracion, json);
+            json.append(i < llamadas.size() - 1 ? ",\n" : "\n");
+        }
+        Arrays.sort(global.latenciasNanos, 0, global.total);
+        json.append("  ],\n  \"total\": ");
+        linea("TOTAL", global, duracion, json);
+        json.append(",\n  \"servidor\": {");
+        StringBuilder textoServidor = new StringBuilder();
+        servidor.forEach((nombre, valor) -> {
+            json.append(textoServidor.length() == 0 ? "" : ", ").append(String.format(Locale.ROOT, "\"%s\": %.2f", nombre, valor));
+            textoServidor.append(String.format(Locale.ROOT, " %s=%.2f", nombre, valor));
+        });
+        json.append("}\n}\n");
+        if (!servidor.isEmpty()) {
+            System.out.println("\nServidor:" + textoServidor);
+        }
+
+        Files.createDirectories(resultado.toAbsolutePath().getParent());
+        Files.writeString(resultado, json, StandardCharsets.UTF_8);
+        System.out.println("\nResultado guardado en " + resultado.toAbsolutePath());
+    }
+
+    private static void linea(String nombre, Medidas m, long duracion, StringBuilder json) {
+        double rps = (double) m.total / duracion;
+        System.out.printf(Locale.ROOT, "%-24s %10d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                          nombre, m.total, m.errores, rps, m.percentilMs(50), m.percentilMs(90), m.percentilMs(99), m.percentilMs(100));
+        json.append(String.format(Locale.ROOT,
+            "    {\"llamada\": \"%s\", \"peticiones\": %d, \"errores\": %d, \"rps\": %.2f, " +
+            "\"p50Ms\": %.2f, \"p90Ms\": %.2f, \"p99Ms\": %.2f, \"maxMs\": %.2f}",
+            nombre, m.total, m.errores, rps, m.percentilMs(50), m.percentilMs(90), m.percentilMs(99), m.percentilMs(100)));
+    }
+}
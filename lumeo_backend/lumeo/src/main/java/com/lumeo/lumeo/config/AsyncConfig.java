@@ -0,0 +1,37 @@
+package com.lumeo.lumeo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Habilita los métodos @Async de la aplicación
+ * como la evaluación de umbrales de presupuesto después de cada cambio en los gastos
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+    
+    /**
+     * Un solo hilo: los cambios de gasto se aplican en el orden en que se confirman y las
+     * evaluaciones no compiten por la base de datos con las peticiones.
+     * Si la cola se llena, el hilo que publica evalúa él mismo (no se pierden eventos)
+     */
+    @Bean(name = "evaluadorPresupuestosExecutor")
+    public ThreadPoolTaskExecutor evaluadorPresupuestosExecutor(
+            @Value("${lumeo.presupuestos.alertas.cola:10000}") int capacidadCola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("lumeo-presupuestos-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
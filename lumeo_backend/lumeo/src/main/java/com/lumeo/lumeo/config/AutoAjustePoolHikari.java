@@ -0,0 +1,184 @@
+package com.lumeo.lumeo.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ajusta el tamaño máximo de los pools Hikari según la carga
+ * - Crece cuando hay hilos esperando conexión
+ * - Decrece cuando el pool lleva varios ciclos infrautilizado
+ * - Nunca supera lumeo.hikari.autoajuste.maximo ni el límite de la base de datos:
+ *   - Conectando por el Transaction Pooler de Supabase (puerto 6543 o host *.pooler.supabase.com)
+ *     max_connections y pg_stat_activity describen los backends del pooler, no cuántos
+ *     clientes admite, así que el límite es lumeo.hikari.autoajuste.limite-pooler
+ *     (el pool size configurado en Supabase)
+ *   - Conectando directamente, las conexiones libres que quedan en PostgreSQL
+ *     (max_connections - conexiones en uso - reserva)
+ *
+ * Desactivado por defecto: activarlo solo tras medir con PruebaCarga varios tamaños de pool
+ * (src/benchmark/carga/comparar-configuraciones.sh, ver application.properties)
+ */
+@Component
+@ConditionalOnProperty(name = "lumeo.hikari.autoajuste.enabled", havingValue = "true")
+public class AutoAjustePoolHikari {
+
+    private static final Logger log = LoggerFactory.getLogger(AutoAjustePoolHikari.class);
+
+    private static final String CONSULTA_CONEXIONES_LIBRES =
+        "SELECT current_setting('max_connections')::int - (SELECT count(*) FROM pg_stat_activity)";
+
+    // Cada cuántos ciclos se vuelve a consultar el límite de la base de datos
+    private static final int CICLOS_REFRESCO_LIMITE_BD = 60;
+
+    // Los pools se buscan desenvolviendo los DataSource: el de la aplicación está envuelto
+    // en ContadorSentenciasDataSource y no se puede inyectar como HikariDataSource
+    @Autowired
+    private List<DataSource> dataSources;
+
+    private List<HikariDataSource> pools;
+
+    @Value("${lumeo.hikari.autoajuste.minimo:1}")
+    private int minimo;
+
+    @Value("${lumeo.hikari.autoajuste.maximo:10}")
+    private int maximo;
+
+    @Value("${lumeo.hikari.autoajuste.ciclos-para-reducir:12}")
+    private int ciclosParaReducir;
+
+    @Value("${lumeo.hikari.autoajuste.reserva-bd:10}")
+    private int reservaBaseDatos;
+
+    @Value("${lumeo.hikari.autoajuste.limite-pooler:15}")
+    private int limitePooler;
+
+    private final Map<String, EstadoPool> estados = new HashMap<>();
+
+    /**
+     * Estado del ajuste de un pool entre ciclos
+     */
+    private static class EstadoPool {
+        int ciclosInfrautilizado;
+        int ciclosDesdeLimiteBd = CICLOS_REFRESCO_LIMITE_BD;
+        int limiteBaseDatos = Integer.MAX_VALUE;
+    }
+
+    @PostConstruct
+    void buscarPools() {
+        // Sin repetir: con réplica el proxy de la aplicación y primaryDataSource llevan al mismo pool
+        Set<HikariDataSource> encontrados = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DataSource dataSource : dataSources) {
+            HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+            if (pool != null) {
+                encontrados.add(pool);
+            }
+        }
+        pools = new ArrayList<>(encontrados);
+    }
+
+    @Scheduled(fixedDelayString = "${lumeo.hikari.autoajuste.intervalo-ms:5000}")
+    public void ajustar() {
+        for (HikariDataSource pool : pools) {
+            try {
+                ajustarPool(pool);
+            } catch (Exception e) {
+                log.warn("Error al ajustar el pool {}: {}", pool.getPoolName(), e.getMessage());
+            }
+        }
+    }
+
+    private void ajustarPool(HikariDataSource pool) {
+        HikariPoolMXBean metricas = pool.getHikariPoolMXBean();
+        if (metricas == null) {
+            // El pool todavía no se ha inicializado
+            return;
+        }
+
+        HikariConfigMXBean config = pool.getHikariConfigMXBean();
+        EstadoPool estado = estados.computeIfAbsent(pool.getPoolName(), nombre -> new EstadoPool());
+
+        int esperando = metricas.getThreadsAwaitingConnection();
+        int activas = metricas.getActiveConnections();
+        int tamanoActual = config.getMaximumPoolSize();
+
+        // Refrescar el límite de la base de datos solo cuando no hay presión,
+        // para no competir por una conexión con las peticiones en espera
+        estado.ciclosDesdeLimiteBd++;
+        if (usaPooler(pool)) {
+            estado.limiteBaseDatos = limitePooler;
+        } else if (esperando == 0 && estado.ciclosDesdeLimiteBd >= CICLOS_REFRESCO_LIMITE_BD) {
+            estado.limiteBaseDatos = consultarLimiteBaseDatos(pool, metricas.getTotalConnections());
+            estado.ciclosDesdeLimiteBd = 0;
+        }
+
+        int limite = Math.max(minimo, Math.min(maximo, estado.limiteBaseDatos));
+        int nuevoTamano = tamanoActual;
+
+        if (esperando > 0) {
+            estado.ciclosInfrautilizado = 0;
+            nuevoTamano = Math.min(limite, tamanoActual + esperando);
+        } else if (activas < tamanoActual / 2.0) {
+            estado.ciclosInfrautilizado++;
+            if (estado.ciclosInfrautilizado >= ciclosParaReducir) {
+                estado.ciclosInfrautilizado = 0;
+                nuevoTamano = tamanoActual - 1;
+            }
+        } else {
+            estado.ciclosInfrautilizado = 0;
+        }
+
+        nuevoTamano = Math.max(minimo, Math.min(limite, nuevoTamano));
+        if (nuevoTamano != tamanoActual) {
+            config.setMaximumPoolSize(nuevoTamano);
+            log.info("Pool {}: tamaño máximo {} → {} (activas={}, esperando={})",
+                     pool.getPoolName(), tamanoActual, nuevoTamano, activas, esperando);
+        }
+    }
+
+    /**
+     * Indica si el pool conecta a través del Transaction Pooler de Supabase
+     */
+    private static boolean usaPooler(HikariDataSource pool) {
+        String url = pool.getJdbcUrl();
+        return url != null && (url.contains(":6543/") || url.contains(".pooler.supabase.com"));
+    }
+
+    /**
+     * Calcula cuántas conexiones puede tener este pool sin agotar PostgreSQL
+     * (las que ya tiene más las libres, descontando la reserva)
+     */
+    private int consultarLimiteBaseDatos(HikariDataSource pool, int conexionesPropias) {
+        try (Connection conexion = pool.getConnection();
+             Statement statement = conexion.createStatement();
+             ResultSet rs = statement.executeQuery(CONSULTA_CONEXIONES_LIBRES)) {
+            if (rs.next()) {
+                return conexionesPropias + Math.max(0, rs.getInt(1) - reservaBaseDatos);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo consultar el límite de conexiones de la base de datos: {}", e.getMessage());
+        }
+        return Integer.MAX_VALUE;
+    }
+}
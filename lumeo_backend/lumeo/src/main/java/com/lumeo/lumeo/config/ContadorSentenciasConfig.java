@@ -0,0 +1,35 @@
+package com.lumeo.lumeo.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Envuelve el DataSource de la aplicación (el bean "dataSource": el pool Hikari, o el
+ * LazyConnectionDataSourceProxy de DataSourceRoutingConfig) en un ContadorSentenciasDataSource
+ *
+ * Solo ese bean: los pools de DataSourceRoutingConfig quedan debajo de él, así que envolverlos
+ * también contaría dos veces cada sentencia
+ */
+@Configuration
+public class ContadorSentenciasConfig {
+
+    private static final String DATA_SOURCE = "dataSource";
+
+    // static: un BeanPostProcessor se crea antes que el resto de beans de la configuración
+    @Bean
+    public static BeanPostProcessor contadorSentenciasDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (DATA_SOURCE.equals(nombre) && bean instanceof DataSource dataSource
+                        && !(bean instanceof ContadorSentenciasDataSource)) {
+                    return new ContadorSentenciasDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.lumeo.lumeo.config;
+
+import com.lumeo.lumeo.util.ContadorSentencias;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * DataSource que registra en ContadorSentencias cada sentencia que se ejecuta por sus conexiones,
+ * venga de JPA/Hibernate o de JdbcTemplate (los INSERT multi-fila y los upsert de saldos no pasan
+ * por Hibernate). Lo instala ContadorSentenciasConfig sobre el DataSource de la aplicación
+ *
+ * Cuenta una sentencia por cada execute*: un executeBatch es una sola ida y vuelta y cuenta una vez
+ * Al ser un DelegatingDataSource, unwrap() sigue llegando al pool Hikari (métricas, autoajuste)
+ */
+public class ContadorSentenciasDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EJECUCIONES = Set.of(
+        "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"
+    );
+
+    public ContadorSentenciasDataSource(DataSource destino) {
+        super(destino);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conexion(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conexion(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection conexion(Connection destino) {
+        return (Connection) Proxy.newProxyInstance(ContadorSentenciasDataSource.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                Object resultado = invocar(destino, metodo, args);
+                if (resultado instanceof Statement sentencia) {
+                    // prepareStatement/prepareCall reciben el SQL; createStatement lo recibe al ejecutar
+                    String sql = metodo.getName().startsWith("prepare") ? (String) args[0] : null;
+                    return sentencia(sentencia, sql);
+                }
+                return resultado;
+            });
+    }
+
+    private static Statement sentencia(Statement destino, String sqlPreparado) {
+        Class<?> tipo = destino instanceof CallableStatement ? CallableStatement.class
+            : destino instanceof PreparedStatement ? PreparedStatement.class
+            : Statement.class;
+        String[] primeroDelLote = new String[1];
+        return (Statement) Proxy.newProxyInstance(ContadorSentenciasDataSource.class.getClassLoader(),
+            new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+                String nombre = metodo.getName();
+                if ("addBatch".equals(nombre) && args != null && args.length == 1 && primeroDelLote[0] == null) {
+                    primeroDelLote[0] = (String) args[0];
+                } else if (EJECUCIONES.contains(nombre)) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                        : sqlPreparado != null ? sqlPreparado
+                        : primeroDelLote[0];
+                    ContadorSentencias.registrar(sql != null ? sql : "(lote)");
+                    if (nombre.endsWith("Batch")) {
+                        primeroDelLote[0] = null;
+                    }
+                }
+                return invocar(destino, metodo, args);
+            });
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
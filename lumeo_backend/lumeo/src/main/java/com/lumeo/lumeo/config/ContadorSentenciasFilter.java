@@ -0,0 +1,81 @@
+package com.lumeo.lumeo.config;
+
+import com.lumeo.lumeo.util.ContadorSentencias;
+import com.lumeo.lumeo.util.LimitadorLog;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Cuenta las sentencias SQL de cada petición HTTP
+ * - Registra el número en la métrica lumeo.http.sentencias (por patrón de URI)
+ * - Avisa de las peticiones que superan lumeo.sql.contador.umbral sentencias
+ *   o que repiten la misma sentencia lumeo.sql.contador.umbral-repeticiones veces (N+1)
+ */
+@Component
+@ConditionalOnProperty(name = "lumeo.sql.contador.enabled", havingValue = "true", matchIfMissing = true)
+public class ContadorSentenciasFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadorSentenciasFilter.class);
+
+    // Una petición lenta se repite con cada llamada del móvil: como mucho 10 avisos por minuto
+    private static final LimitadorLog LIMITE_AVISOS = LimitadorLog.maximo(10, Duration.ofMinutes(1));
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lumeo.sql.contador.umbral:20}")
+    private int umbral;
+
+    @Value("${lumeo.sql.contador.umbral-repeticiones:5}")
+    private int umbralRepeticiones;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorSentencias.iniciar();
+        ContadorSentencias.Conteo conteo;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            conteo = ContadorSentencias.detener();
+        }
+
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("lumeo.http.sentencias")
+            .description("Sentencias SQL ejecutadas por petición HTTP")
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(conteo.getTotal());
+
+        Map.Entry<String, Integer> masRepetida = conteo.masRepetida().orElse(null);
+        boolean posibleNMasUno = masRepetida != null && masRepetida.getValue() >= umbralRepeticiones;
+
+        if ((conteo.getTotal() > umbral || posibleNMasUno) && LIMITE_AVISOS.permitir()) {
+            log.warn("{} {} ejecutó {} sentencias SQL{} ({} avisos omitidos). Más repetida ({}x): {}",
+                     request.getMethod(), uri, conteo.getTotal(),
+                     posibleNMasUno ? ", posible N+1" : "",
+                     LIMITE_AVISOS.omitidos(),
+                     masRepetida != null ? masRepetida.getValue() : 0,
+                     masRepetida != null ? masRepetida.getKey() : "-");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.lumeo.lumeo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Enrutamiento lectura/escritura entre la base de datos primaria y una réplica
+ * Las transacciones @Transactional(readOnly = true) usan la réplica mientras esté sana
+ * y su retraso no supere lumeo.datasource.replica.max-retraso-segundos
+ *
+ * Se activa con lumeo.datasource.replica.enabled=true. Para probarlo en local basta
+ * con dos instancias de PostgreSQL (por ejemplo en los puertos 5432 y 5433)
+ */
+@Configuration
+@ConditionalOnProperty(name = "lumeo.datasource.replica.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    /**
+     * Pool de la base de datos primaria (spring.datasource.*)
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Pool de la réplica (lumeo.datasource.replica.hikari.*)
+     */
+    @Bean
+    @ConfigurationProperties("lumeo.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+            @Value("${lumeo.datasource.replica.max-retraso-segundos:5}") double maxRetrasoSegundos) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, maxRetrasoSegundos);
+    }
+
+    /**
+     * DataSource que usa toda la aplicación
+     * La conexión real se obtiene al ejecutar la primera sentencia, cuando ya se sabe
+     * si la transacción es de solo lectura
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+}
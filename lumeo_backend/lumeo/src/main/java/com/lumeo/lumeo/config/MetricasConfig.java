@@ -0,0 +1,31 @@
+package com.lumeo.lumeo.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/**
+ * Métricas de los servicios anotados con @Timed (lumeo.servicio en /actuator/prometheus)
+ *
+ * Las etiquetas class/method se toman de la clase real del bean y no de la que declara
+ * el método, para que los métodos heredados de GenericService (findAll, findById...)
+ * se distingan por servicio
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        Function<ProceedingJoinPoint, Iterable<Tag>> etiquetas = pjp -> Tags.of(
+            "class", pjp.getTarget().getClass().getSimpleName(),
+            "method", pjp.getSignature().getName()
+        );
+        return new TimedAspect(registry, etiquetas);
+    }
+}
@@ -0,0 +1,97 @@
+package com.lumeo.lumeo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource para las transacciones de solo lectura
+ * Entrega conexiones de la réplica mientras esté sana y dentro del retraso permitido,
+ * y de la base de datos primaria en caso contrario
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Retraso de replicación en segundos (0 si no es una réplica en recuperación o está al día)
+    private static final String CONSULTA_RETRASO =
+        "SELECT CASE " +
+        "WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())), 0) END";
+
+    private final DataSource primaria;
+    private final DataSource replica;
+    private final double maxRetrasoSegundos;
+
+    private volatile boolean replicaDisponible = false;
+
+    public ReplicaRoutingDataSource(DataSource primaria, DataSource replica, double maxRetrasoSegundos) {
+        this.primaria = primaria;
+        this.replica = replica;
+        this.maxRetrasoSegundos = maxRetrasoSegundos;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaDisponible) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                marcarNoDisponible("error al obtener conexión: " + e.getMessage());
+            }
+        }
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (replicaDisponible) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                marcarNoDisponible("error al obtener conexión: " + e.getMessage());
+            }
+        }
+        return primaria.getConnection(username, password);
+    }
+
+    /**
+     * Comprueba la salud y el retraso de la réplica y actualiza su disponibilidad
+     */
+    @Scheduled(fixedDelayString = "${lumeo.datasource.replica.intervalo-comprobacion-ms:5000}")
+    public void comprobarReplica() {
+        try (Connection conexion = replica.getConnection();
+             Statement statement = conexion.createStatement();
+             ResultSet rs = statement.executeQuery(CONSULTA_RETRASO)) {
+            double retraso = rs.next() ? rs.getDouble(1) : Double.MAX_VALUE;
+
+            if (retraso > maxRetrasoSegundos) {
+                marcarNoDisponible("retraso de " + retraso + "s (máximo " + maxRetrasoSegundos + "s)");
+            } else if (!replicaDisponible) {
+                replicaDisponible = true;
+                log.info("Réplica disponible, las lecturas se envían a la réplica");
+            }
+        } catch (SQLException e) {
+            marcarNoDisponible(e.getMessage());
+        }
+    }
+
+    public boolean isReplicaDisponible() {
+        return replicaDisponible;
+    }
+
+    private void marcarNoDisponible(String motivo) {
+        if (replicaDisponible) {
+            replicaDisponible = false;
+            log.warn("Réplica no disponible, las lecturas se envían a la primaria: {}", motivo);
+        }
+    }
+}
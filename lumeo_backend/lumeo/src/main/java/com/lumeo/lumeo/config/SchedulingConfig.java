@@ -0,0 +1,13 @@
+package com.lumeo.lumeo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita los jobs programados (@Scheduled) de la aplicación
+ * como la creación de particiones futuras de transaccion
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
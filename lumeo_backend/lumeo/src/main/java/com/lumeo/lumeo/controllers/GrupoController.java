@@ -2,13 +2,19 @@ package com.lumeo.lumeo.controllers;
 
 import com.lumeo.lumeo.dtos.CrearGrupoDTO;
 import com.lumeo.lumeo.dtos.GrupoConMiembrosDTO;
+import com.lumeo.lumeo.dtos.PagoLiquidacionDTO;
+import com.lumeo.lumeo.dtos.SaldoGrupoDTO;
 import com.lumeo.lumeo.dtos.VerificarUsuarioDTO;
 import com.lumeo.lumeo.models.GrupoModel;
+import com.lumeo.lumeo.services.EventoGrupoService;
 import com.lumeo.lumeo.services.GrupoService;
+import com.lumeo.lumeo.services.SaldoGrupoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
 
 @RestController
@@ -18,6 +24,12 @@ public class GrupoController {
     @Autowired
     private GrupoService grupoService;
     
+    @Autowired
+    private SaldoGrupoService saldoGrupoService;
+    
+    @Autowired
+    private EventoGrupoService eventoGrupoService;
+    
     @GetMapping
     public ResponseEntity<List<GrupoModel>> findAll() {
         return ResponseEntity.ok(grupoService.findAll());
@@ -93,6 +105,44 @@ public class GrupoController {
         return ResponseEntity.ok(grupos);
     }
     
+    /**
+     * Obtiene el saldo neto de cada miembro del grupo (positivo: le deben, negativo: debe)
+     */
+    @GetMapping("/{id}/saldos")
+    public ResponseEntity<List<SaldoGrupoDTO>> obtenerSaldos(@PathVariable Long id) {
+        if (!grupoService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(saldoGrupoService.obtenerSaldos(id));
+    }
+    
+    /**
+     * Obtiene los pagos mínimos para saldar todas las deudas del grupo
+     */
+    @GetMapping("/{id}/liquidacion")
+    public ResponseEntity<List<PagoLiquidacionDTO>> obtenerLiquidacion(@PathVariable Long id) {
+        if (!grupoService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(saldoGrupoService.calcularLiquidacion(id));
+    }
+    
+    /**
+     * Stream SSE con la actividad del grupo (transacciones y miembros)
+     * Sustituye al sondeo periódico de /transacciones-grupales/grupo/{id} y /{id}/con-miembros
+     */
+    @GetMapping(value = "/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventos(@PathVariable Long id) {
+        if (!grupoService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(eventoGrupoService.suscribirGrupo(id));
+        } catch (EventoGrupoService.LimiteSuscriptoresException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
     /**
      * Agrega un miembro a un grupo existente
      */
@@ -1,12 +1,9 @@
 package com.lumeo.lumeo.controllers;
 
 import com.lumeo.lumeo.models.MetaAhorroModel;
-import com.lumeo.lumeo.models.TransaccionModel;
-import com.lumeo.lumeo.models.usuarioModel;
 import com.lumeo.lumeo.models.DivisaModel;
 import com.lumeo.lumeo.dtos.MetaAhorroDTO;
 import com.lumeo.lumeo.services.MetaAhorroService;
-import com.lumeo.lumeo.services.TransaccionService;
 import com.lumeo.lumeo.services.UsuarioService;
 import com.lumeo.lumeo.services.ConversionDivisaService;
 import com.lumeo.lumeo.repositories.DivisaRepository;
@@ -14,7 +11,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,9 +25,6 @@ public class MetaAhorroController {
     @Autowired
     private MetaAhorroService metaAhorroService;
     
-    @Autowired
-    private TransaccionService transaccionService;
-    
     @Autowired
     private UsuarioService usuarioService;
     
@@ -54,17 +47,17 @@ public class MetaAhorroController {
     @GetMapping("/usuario/uid/{uid}")
     public ResponseEntity<List<MetaAhorroDTO>> findByUsuarioUid(@PathVariable UUID uid) {
         // Obtener el usuario para saber su divisa actual
-        Optional<usuarioModel> usuarioOpt = usuarioService.findByUid(uid);
+        Optional<UsuarioService.DatosUsuario> usuarioOpt = usuarioService.resolverUid(uid);
         if (usuarioOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         
-        usuarioModel usuario = usuarioOpt.get();
+        UsuarioService.DatosUsuario usuario = usuarioOpt.get();
         String codigoDivisaUsuario = "EUR"; // Por defecto
         String posicionSimbolo = "DESPUES"; // Por defecto
         
-        if (usuario.getIdDivisa() != null) {
-            Optional<DivisaModel> divisaOpt = divisaRepository.findById(usuario.getIdDivisa());
+        if (usuario.idDivisa() != null) {
+            Optional<DivisaModel> divisaOpt = divisaRepository.findById(usuario.idDivisa());
             if (divisaOpt.isPresent()) {
                 codigoDivisaUsuario = divisaOpt.get().getIso();
                 posicionSimbolo = divisaOpt.get().getPosicionSimbolo() != null ? divisaOpt.get().getPosicionSimbolo() : "DESPUES";
@@ -72,7 +65,7 @@ public class MetaAhorroController {
         }
         
         // Obtener las metas y convertir las cantidades
-        List<MetaAhorroModel> metas = metaAhorroService.findByUsuarioUid(uid);
+        List<MetaAhorroModel> metas = metaAhorroService.findByUsuario(usuario.id());
         
         final String divisaDestino = codigoDivisaUsuario;
         final String posicion = posicionSimbolo;
@@ -134,18 +127,19 @@ public class MetaAhorroController {
     
     @PostMapping("/usuario/uid/{uid}")
     public ResponseEntity<?> createByUid(@PathVariable UUID uid, @RequestBody MetaAhorroModel metaAhorro) {
-        Optional<usuarioModel> usuario = usuarioService.findByUid(uid);
+        Optional<UsuarioService.DatosUsuario> usuario = usuarioService.resolverUid(uid);
         
         if (usuario.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Usuario no encontrado");
         }
         
-        metaAhorro.setIdUsuario(usuario.get().getId());
+        metaAhorro.setIdUsuario(usuario.get().id());
         
         // Establecer la divisa original como la divisa actual del usuario
+        // Se lee de la base de datos: se guarda para siempre y la de la caché puede ir atrasada
         if (metaAhorro.getIdDivisaOriginal() == null) {
-            metaAhorro.setIdDivisaOriginal(usuario.get().getIdDivisa());
+            metaAhorro.setIdDivisaOriginal(usuarioService.divisaActual(usuario.get().id()).orElse(null));
         }
         
         MetaAhorroModel createdMeta = metaAhorroService.create(metaAhorro);
@@ -161,9 +155,7 @@ public class MetaAhorroController {
     
     @PutMapping("/{id}/agregar-cantidad")
     public ResponseEntity<?> agregarCantidad(@PathVariable Long id, @RequestBody Map<String, Object> request) {
-        Optional<MetaAhorroModel> metaOptional = metaAhorroService.findById(id);
-        
-        if (metaOptional.isEmpty()) {
+        if (!metaAhorroService.existsById(id)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", "Meta de ahorro no encontrada"));
         }
@@ -176,34 +168,20 @@ public class MetaAhorroController {
                     .body(Map.of("error", "La cantidad debe ser mayor a 0"));
         }
         
-        MetaAhorroModel meta = metaOptional.get();
-        Double nuevaCantidad = meta.getCantidadActual() + cantidad;
+        // Incremento atómico y gasto asociado en una sola transacción
+        Optional<Double> nuevaCantidad = metaAhorroService.agregarCantidad(id, cantidad);
         
         // No permitir que exceda el objetivo
-        if (nuevaCantidad > meta.getCantidadObjetivo()) {
+        if (nuevaCantidad.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "La cantidad total excedería el objetivo de la meta"));
         }
         
-        // Actualizar meta
-        meta.setCantidadActual(nuevaCantidad);
-        metaAhorroService.create(meta);
-        
-        // Crear transacción como gasto
-        TransaccionModel transaccion = new TransaccionModel();
-        transaccion.setTitulo("Aporte a " + meta.getTitulo());
-        transaccion.setImporte(cantidad);
-        transaccion.setFechaTransaccion(LocalDate.now());
-        transaccion.setIdUsuario(meta.getIdUsuario());
-        transaccion.setIdTipo(2L); // 2 = Gasto
-        transaccion.setIdEstado(2L); // 2 = Completado
-        transaccionService.create(transaccion);
-        
         // Retornar respuesta simple
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("message", "Aporte agregado exitosamente");
-        response.put("nuevaCantidadActual", nuevaCantidad);
+        response.put("nuevaCantidadActual", nuevaCantidad.get());
         
         return ResponseEntity.ok(response);
     }
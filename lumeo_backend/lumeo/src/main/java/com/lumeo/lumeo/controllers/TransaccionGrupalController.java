@@ -22,9 +22,13 @@ public class TransaccionGrupalController {
      * Crea una transacción grupal con las transacciones individuales asociadas
      */
     @PostMapping
-    public ResponseEntity<TransaccionGrupalModel> crear(@RequestBody CrearTransaccionGrupalDTO dto) {
-        TransaccionGrupalModel transaccionGrupal = transaccionGrupalService.crearTransaccionGrupal(dto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(transaccionGrupal);
+    public ResponseEntity<?> crear(@RequestBody CrearTransaccionGrupalDTO dto) {
+        try {
+            TransaccionGrupalModel transaccionGrupal = transaccionGrupalService.crearTransaccionGrupal(dto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(transaccionGrupal);
+        } catch (TransaccionGrupalService.PagadorNoMiembroException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     /**
@@ -5,13 +5,18 @@ import com.lumeo.lumeo.services.UsuarioService;
 import com.lumeo.lumeo.services.ResumenFinancieroService;
 import com.lumeo.lumeo.services.GraficosService;
 import com.lumeo.lumeo.services.ConversionDivisaService;
+import com.lumeo.lumeo.services.EventoGrupoService;
 import com.lumeo.lumeo.dtos.ResumenFinancieroDTO;
 import com.lumeo.lumeo.dtos.GastoPorCategoriaDTO;
 import com.lumeo.lumeo.dtos.EvolucionMensualDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
 import java.util.Optional;
 import java.math.BigDecimal;
@@ -20,6 +25,8 @@ import java.math.BigDecimal;
 @RequestMapping("/api/usuarios")
 public class UsuarioController {
     
+    private static final Logger log = LoggerFactory.getLogger(UsuarioController.class);
+    
     @Autowired
     private UsuarioService usuarioService;
     
@@ -32,6 +39,9 @@ public class UsuarioController {
     @Autowired
     private ConversionDivisaService conversionDivisaService;
     
+    @Autowired
+    private EventoGrupoService eventoGrupoService;
+    
     @GetMapping
     public ResponseEntity<List<usuarioModel>> findAll() {
         return ResponseEntity.ok(usuarioService.findAll());
@@ -112,8 +122,8 @@ public class UsuarioController {
                     idDivisaAnterior = 1L; // EUR por defecto
                 }
                 
-                System.out.println("🔄 Convirtiendo montos del usuario " + usuarioActual.getId() + 
-                                 " de divisa " + idDivisaAnterior + " a " + idDivisaNueva);
+                log.info("Convirtiendo montos del usuario {} de divisa {} a {}",
+                         usuarioActual.getId(), idDivisaAnterior, idDivisaNueva);
                 
                 // Convertir todos los montos del usuario
                 conversionDivisaService.convertirTodosMontosUsuario(
@@ -130,8 +140,7 @@ public class UsuarioController {
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
-            System.err.println("Error al actualizar usuario: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error al actualizar usuario {}", uid, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -144,6 +153,21 @@ public class UsuarioController {
         return ResponseEntity.notFound().build();
     }
     
+    /**
+     * Stream SSE con la actividad de todos los grupos del usuario
+     */
+    @GetMapping(value = "/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventos(@PathVariable Long id) {
+        if (!usuarioService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(eventoGrupoService.suscribirUsuario(id));
+        } catch (EventoGrupoService.LimiteSuscriptoresException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
     @GetMapping("/{id}/resumen-financiero")
     public ResponseEntity<ResumenFinancieroDTO> getResumenFinanciero(@PathVariable Long id) {
         try {
@@ -0,0 +1,24 @@
+package com.lumeo.lumeo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aviso de que el gasto de un mes ha alcanzado un porcentaje de su presupuesto
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertaPresupuestoDTO {
+    private Long idPresupuesto;
+    private Long idUsuario;
+    private String mes;
+    private String anio;
+    private Double cantidad;
+    private Double totalGastos;
+    private Integer umbral; // Porcentaje alcanzado (80, 100...)
+    private LocalDateTime fecha;
+}
@@ -19,6 +19,7 @@ public class CrearTransaccionGrupalDTO {
     private Long idCategoria;
     private Long idTipo;
     private Long idAdjunto;
+    private Long idPagador; // Usuario que pagó; sin pagador no se actualizan los saldos del grupo
     
     // Lista de transacciones individuales a crear
     private List<TransaccionIndividualDTO> transaccionesIndividuales;
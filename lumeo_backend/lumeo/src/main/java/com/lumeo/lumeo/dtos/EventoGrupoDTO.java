@@ -0,0 +1,22 @@
+package com.lumeo.lumeo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento enviado por SSE a los clientes suscritos a un grupo o a un usuario
+ * Solo indica qué ha cambiado: el cliente vuelve a pedir los datos que necesite
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoGrupoDTO {
+    private Long id; // Secuencia creciente del servidor (campo id: del evento SSE)
+    private String tipo; // GRUPO_CREADO, GRUPO_ACTUALIZADO, MIEMBRO_AGREGADO, TRANSACCION_CREADA...
+    private Long idGrupo;
+    private Long idEntidad; // ID de la transacción o del miembro afectado
+    private LocalDateTime fecha;
+}
@@ -13,4 +13,10 @@ import java.util.List;
 public class GrupoConMiembrosDTO {
     private GrupoModel grupo;
     private List<MiembroGrupoDTO> miembros;
+    private List<String> usuariosNoEncontrados; // Solo al crear: nombres de usuario invitados que no existen
+    
+    public GrupoConMiembrosDTO(GrupoModel grupo, List<MiembroGrupoDTO> miembros) {
+        this.grupo = grupo;
+        this.miembros = miembros;
+    }
 }
@@ -0,0 +1,19 @@
+package com.lumeo.lumeo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pago propuesto para saldar las deudas de un grupo: idDeudor paga importe a idAcreedor
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PagoLiquidacionDTO {
+    private Long idDeudor;
+    private String nombreUsuarioDeudor;
+    private Long idAcreedor;
+    private String nombreUsuarioAcreedor;
+    private Double importe;
+}
@@ -13,6 +13,7 @@ public class PresupuestoDTO {
     private Long id;
     private String mes;
     private String anio;
+    private Integer periodo;
     private Double cantidad;
     private Double totalGastos;
     private Long idUsuario;
@@ -0,0 +1,16 @@
+package com.lumeo.lumeo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoGrupoDTO {
+    private Long idUsuario;
+    private String nombreUsuario;
+    private String nombre;
+    private String apellido;
+    private Double saldo; // Positivo: le deben. Negativo: debe
+}
@@ -18,8 +18,10 @@ public class AdjuntoModel {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Sin FK en la base de datos: transaccion está particionada y su clave es (id, fecha_transaccion)
+    // La integridad la mantienen los triggers de sql/01_particionar_transaccion.sql (Paso 8)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "id_transaccion", nullable = false)
+    @JoinColumn(name = "id_transaccion", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private TransaccionModel transaccion;
     
     @Column(name = "ruta_archivo", nullable = false)
@@ -1,6 +1,7 @@
 package com.lumeo.lumeo.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.lumeo.lumeo.util.PeriodoUtil;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,7 +15,9 @@ import java.time.OffsetDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "presupuesto")
+@Table(name = "presupuesto", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_presupuesto_usuario_periodo", columnNames = {"id_usuario", "periodo"})
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class PresupuestoModel {
     
@@ -28,9 +31,17 @@ public class PresupuestoModel {
     @Column(name = "anio")
     private String anio;
     
+    // Mes del presupuesto como yyyymm (ver PeriodoUtil); mes y anio se mantienen por compatibilidad con la API
+    @Column(name = "periodo")
+    private Integer periodo;
+    
     @Column(name = "cantidad", nullable = false)
     private Double cantidad;
     
+    // Mayor porcentaje del que ya se ha avisado (80, 100...); solo lo escribe EvaluadorPresupuestoService
+    @Column(name = "umbral_notificado", insertable = false, updatable = false)
+    private Integer umbralNotificado;
+    
     @Column(name = "id_usuario")
     private Long idUsuario;
     
@@ -46,4 +57,20 @@ public class PresupuestoModel {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario", insertable = false, updatable = false)
     private usuarioModel usuario;
+    
+    /**
+     * Mantiene periodo y mes/anio coherentes: si llegan mes y anio se recalcula el periodo,
+     * y si solo llega el periodo se rellenan mes y anio
+     */
+    @PrePersist
+    @PreUpdate
+    void sincronizarPeriodo() {
+        Integer calculado = PeriodoUtil.periodo(mes, anio);
+        if (calculado != null) {
+            periodo = calculado;
+        } else if (periodo != null && PeriodoUtil.esValido(periodo)) {
+            mes = PeriodoUtil.nombreMes(PeriodoUtil.mes(periodo));
+            anio = String.valueOf(PeriodoUtil.anio(periodo));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.lumeo.lumeo.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Saldo neto de un miembro dentro de un grupo
+ * Positivo: el resto del grupo le debe dinero. Negativo: debe dinero al grupo
+ * Se mantiene de forma incremental (ver SaldoGrupoService) y la suma de los saldos de un grupo es 0
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "saldo_grupo")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@IdClass(SaldoGrupoModel.SaldoGrupoId.class)
+public class SaldoGrupoModel {
+    
+    @Id
+    @Column(name = "id_grupo")
+    private Long idGrupo;
+    
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+    
+    @Column(name = "saldo", nullable = false)
+    private Double saldo;
+    
+    // Clase interna para la clave compuesta
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SaldoGrupoId implements Serializable {
+        private Long idGrupo;
+        private Long idUsuario;
+    }
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Data
@@ -48,6 +49,9 @@ public class TransaccionGrupalModel {
     @Column(name = "id_divisa_original")
     private Long idDivisaOriginal;
     
+    @Column(name = "id_pagador")
+    private Long idPagador; // Usuario que pagó el importe total (los demás le deben su parte)
+    
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
     
@@ -71,6 +75,10 @@ public class TransaccionGrupalModel {
     @JoinColumn(name = "id_adjunto", insertable = false, updatable = false)
     private AdjuntoModel adjunto;
     
+    // Transacciones individuales creadas junto con la grupal (solo en la respuesta de crearTransaccionGrupal)
+    @Transient
+    private List<TransaccionModel> transaccionesIndividuales;
+    
     @PrePersist
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
@@ -13,7 +13,9 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "usuario")
+@Table(name = "usuario", indexes = {
+    @Index(name = "uk_usuario_uid", columnList = "uid", unique = true)
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class usuarioModel {
     
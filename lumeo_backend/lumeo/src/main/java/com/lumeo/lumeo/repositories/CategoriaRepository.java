@@ -1,8 +1,11 @@
 package com.lumeo.lumeo.repositories;
 
 import com.lumeo.lumeo.models.CategoriaModel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
@@ -14,7 +17,10 @@ public interface CategoriaRepository extends JpaRepository<CategoriaModel, Long>
      * Obtiene las categorías disponibles para un usuario específico:
      * - Categorías públicas (es_personalizada = false)
      * - Categorías personalizadas del usuario (es_personalizada = true AND id_usuario = :idUsuario)
+     * El resultado se guarda en la caché de consultas de Hibernate y se invalida
+     * automáticamente cuando cambia la tabla categoria
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT c FROM CategoriaModel c WHERE " +
            "(c.esPersonalizada = false OR c.esPersonalizada IS NULL) " +
            "OR (c.esPersonalizada = true AND c.idUsuario = :idUsuario)")
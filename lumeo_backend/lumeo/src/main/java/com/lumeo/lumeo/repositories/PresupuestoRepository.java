@@ -2,18 +2,102 @@ package com.lumeo.lumeo.repositories;
 
 import com.lumeo.lumeo.models.PresupuestoModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 
 @Repository
 public interface PresupuestoRepository extends JpaRepository<PresupuestoModel, Long> {
     @Query("SELECT p FROM PresupuestoModel p WHERE p.idUsuario = :idUsuario ORDER BY p.fechaCreacion DESC")
     List<PresupuestoModel> findByIdUsuario(@Param("idUsuario") Long idUsuario);
     
-    @Query("SELECT p FROM PresupuestoModel p WHERE p.usuario.uid = :uid ORDER BY p.fechaCreacion DESC")
-    List<PresupuestoModel> findByUsuarioUid(@Param("uid") UUID uid);
-}
\ No newline at end of file
+    boolean existsByIdUsuarioAndPeriodo(Long idUsuario, Integer periodo);
+    
+    Optional<PresupuestoModel> findByIdUsuarioAndPeriodo(Long idUsuario, Integer periodo);
+    
+    /**
+     * Registra que se ha avisado de un umbral, solo si es mayor que el último avisado
+     * @return 1 si se ha marcado ahora (hay que notificar), 0 si ya estaba notificado
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE presupuesto SET umbral_notificado = :umbral " +
+           "WHERE id = :id AND (umbral_notificado IS NULL OR umbral_notificado < :umbral)", nativeQuery = true)
+    int marcarUmbralNotificado(@Param("id") Long id, @Param("umbral") Integer umbral);
+    
+    /**
+     * Olvida los umbrales avisados para que el presupuesto vuelva a generar alertas
+     * (se usa al cambiar su cantidad o su mes)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE presupuesto SET umbral_notificado = NULL WHERE id = :id", nativeQuery = true)
+    int reiniciarUmbralNotificado(@Param("id") Long id);
+    
+    /**
+     * Total de gastos (tipo = 2) del mes de cada presupuesto de un usuario, en una sola consulta
+     * Mismo criterio que TransaccionRepository.calcularGastosPorMesAnioIncluyendoDestinatario:
+     * como creador suma importe y como destinatario importe_destinatario
+     * El mes sale de periodo o, si es NULL (duplicados que el relleno deja sin periodo), de mes y anio
+     * Si tampoco se reconocen mes y anio el total es NULL
+     * @param idUsuario ID del usuario
+     * @return Filas [idPresupuesto, total]
+     */
+    @Query(value = "WITH mes_presupuesto AS ( " +
+           "  SELECT p.id, p.id_usuario, " +
+           "         COALESCE(p.periodo, " +
+           "           CASE WHEN trim(p.anio) ~ '^[0-9]{4}$' THEN CAST(trim(p.anio) AS integer) * 100 + m.numero END) AS periodo " +
+           "  FROM presupuesto p " +
+           "  LEFT JOIN (VALUES ('enero', 1), ('febrero', 2), ('marzo', 3), ('abril', 4), ('mayo', 5), ('junio', 6), " +
+           "                    ('julio', 7), ('agosto', 8), ('septiembre', 9), ('setiembre', 9), ('octubre', 10), " +
+           "                    ('noviembre', 11), ('diciembre', 12)) AS m(nombre, numero) " +
+           "    ON lower(trim(p.mes)) = m.nombre " +
+           "  WHERE p.id_usuario = :idUsuario " +
+           ") " +
+           "SELECT p.id, " +
+           "CASE WHEN p.periodo IS NULL THEN NULL ELSE " +
+           "COALESCE( " +
+           "  SUM(CASE " +
+           "    WHEN t.id_usuario = p.id_usuario THEN t.importe " +
+           "    WHEN t.id_destinatario = p.id_usuario THEN t.importe_destinatario " +
+           "    ELSE 0 " +
+           "  END), 0.0) END AS total " +
+           "FROM mes_presupuesto p " +
+           "LEFT JOIN transaccion t " +
+           "  ON (t.id_usuario = p.id_usuario OR t.id_destinatario = p.id_usuario) " +
+           "  AND t.id_tipo = 2 " +
+           "  AND t.fecha_transaccion >= make_date(p.periodo / 100, p.periodo % 100, 1) " +
+           "  AND t.fecha_transaccion < (make_date(p.periodo / 100, p.periodo % 100, 1) + INTERVAL '1 month')::date " +
+           "GROUP BY p.id, p.periodo", nativeQuery = true)
+    List<Object[]> calcularGastosPorPresupuesto(@Param("idUsuario") Long idUsuario);
+    
+    /**
+     * Rellena el periodo de los presupuestos antiguos a partir de mes y anio
+     * Si un usuario tiene varios presupuestos del mismo mes solo se rellena el más reciente
+     * (el resto queda con periodo NULL, ver sql/03_periodo_presupuesto.sql)
+     * @return Número de presupuestos actualizados
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH calculado AS ( " +
+           "  SELECT p.id, p.id_usuario, CAST(trim(p.anio) AS integer) * 100 + m.numero AS periodo, " +
+           "         row_number() OVER (PARTITION BY p.id_usuario, trim(p.anio), m.numero " +
+           "                            ORDER BY p.fecha_modificacion DESC NULLS LAST, p.id DESC) AS orden " +
+           "  FROM presupuesto p " +
+           "  JOIN (VALUES ('enero', 1), ('febrero', 2), ('marzo', 3), ('abril', 4), ('mayo', 5), ('junio', 6), " +
+           "               ('julio', 7), ('agosto', 8), ('septiembre', 9), ('setiembre', 9), ('octubre', 10), " +
+           "               ('noviembre', 11), ('diciembre', 12)) AS m(nombre, numero) " +
+           "    ON lower(trim(p.mes)) = m.nombre " +
+           "  WHERE p.periodo IS NULL AND trim(p.anio) ~ '^[0-9]{4}$' " +
+           ") " +
+           "UPDATE presupuesto p SET periodo = c.periodo " +
+           "FROM calculado c " +
+           "WHERE p.id = c.id AND c.orden = 1 " +
+           "AND NOT EXISTS (SELECT 1 FROM presupuesto o WHERE o.id_usuario = c.id_usuario AND o.periodo = c.periodo)",
+           nativeQuery = true)
+    int rellenarPeriodos();
+}
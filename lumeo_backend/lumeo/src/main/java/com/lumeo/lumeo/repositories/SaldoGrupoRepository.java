@@ -0,0 +1,30 @@
+package com.lumeo.lumeo.repositories;
+
+import com.lumeo.lumeo.models.SaldoGrupoModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SaldoGrupoRepository extends JpaRepository<SaldoGrupoModel, SaldoGrupoModel.SaldoGrupoId> {
+    
+    List<SaldoGrupoModel> findByIdGrupo(Long idGrupo);
+    
+    void deleteByIdGrupo(Long idGrupo);
+    
+    /**
+     * Suma un importe (positivo o negativo) al saldo de un miembro, creando la fila si no existe
+     * El incremento lo hace PostgreSQL en una sola sentencia, así dos transacciones
+     * concurrentes sobre el mismo grupo no se pisan el saldo
+     */
+    @Modifying
+    @Query(value = "INSERT INTO saldo_grupo (id_grupo, id_usuario, saldo) VALUES (:idGrupo, :idUsuario, :importe) " +
+           "ON CONFLICT (id_grupo, id_usuario) DO UPDATE SET saldo = saldo_grupo.saldo + EXCLUDED.saldo", nativeQuery = true)
+    void sumarSaldo(@Param("idGrupo") Long idGrupo,
+                    @Param("idUsuario") Long idUsuario,
+                    @Param("importe") Double importe);
+}
@@ -2,6 +2,7 @@ package com.lumeo.lumeo.repositories;
 
 import com.lumeo.lumeo.models.TransaccionModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +19,19 @@ public interface TransaccionRepository extends JpaRepository<TransaccionModel, L
      */
     List<TransaccionModel> findByIdUsuario(Long idUsuario);
     
+    /**
+     * Registra la divisa original de todas las transacciones de un usuario que aún no la tienen
+     * Una sola sentencia UPDATE; el contexto de persistencia se vacía antes y se limpia después
+     * para que no queden entidades cargadas con el valor anterior
+     * @param idUsuario ID del usuario
+     * @param idDivisa Divisa en la que se registraron
+     * @return Número de transacciones actualizadas
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TransaccionModel t SET t.idDivisaOriginal = :idDivisa " +
+           "WHERE t.idUsuario = :idUsuario AND t.idDivisaOriginal IS NULL")
+    int inicializarDivisaOriginal(@Param("idUsuario") Long idUsuario, @Param("idDivisa") Long idDivisa);
+    
     /**
      * Busca todas las transacciones donde el usuario es creador o destinatario
      * CON JOIN FETCH para evitar LazyInitializationException
@@ -109,8 +123,8 @@ public interface TransaccionRepository extends JpaRepository<TransaccionModel, L
     @Query(value = "SELECT COALESCE(SUM(t.importe), 0.0) FROM transaccion t " +
            "WHERE t.id_usuario = :idUsuario " +
            "AND t.id_tipo = 2 " +
-           "AND EXTRACT(MONTH FROM t.fecha_transaccion) = :mes " +
-           "AND EXTRACT(YEAR FROM t.fecha_transaccion) = :anio", nativeQuery = true)
+           "AND t.fecha_transaccion >= make_date(:anio, :mes, 1) " +
+           "AND t.fecha_transaccion < (make_date(:anio, :mes, 1) + INTERVAL '1 month')::date", nativeQuery = true)
     Double calcularGastosPorMesAnio(@Param("idUsuario") Long idUsuario, 
                                      @Param("mes") Integer mes, 
                                      @Param("anio") Integer anio);
@@ -134,8 +148,8 @@ public interface TransaccionRepository extends JpaRepository<TransaccionModel, L
            "FROM transaccion t " +
            "WHERE (t.id_usuario = :idUsuario OR t.id_destinatario = :idDestinatario) " +
            "AND t.id_tipo = 2 " +
-           "AND EXTRACT(MONTH FROM t.fecha_transaccion) = :mes " +
-           "AND EXTRACT(YEAR FROM t.fecha_transaccion) = :anio", nativeQuery = true)
+           "AND t.fecha_transaccion >= make_date(:anio, :mes, 1) " +
+           "AND t.fecha_transaccion < (make_date(:anio, :mes, 1) + INTERVAL '1 month')::date", nativeQuery = true)
     Double calcularGastosPorMesAnioIncluyendoDestinatario(@Param("idUsuario") Long idUsuario, 
                                                            @Param("idDestinatario") Long idDestinatario,
                                                            @Param("mes") Integer mes, 
@@ -143,23 +157,36 @@ public interface TransaccionRepository extends JpaRepository<TransaccionModel, L
     
     /**
      * Busca transacciones de un usuario filtradas por mes y año
+     * Se traduce a un rango de fechas para que PostgreSQL pueda podar particiones
      * @param idUsuario ID del usuario
      * @param mes Número del mes (1-12)
-     * @param anio Año como String
+     * @param anio Año
      * @return Lista de transacciones que coinciden con el mes y año
      */
+    default List<TransaccionModel> findByUsuarioMesAnio(Long idUsuario, Integer mes, Integer anio) {
+        LocalDate inicioMes = LocalDate.of(anio, mes, 1);
+        return findGastosByIdUsuarioAndRangoFechas(idUsuario, inicioMes, inicioMes.plusMonths(1));
+    }
+    
+    /**
+     * Busca los gastos de un usuario en un rango de fechas [desde, hasta)
+     * @param idUsuario ID del usuario
+     * @param desde Fecha de inicio (incluida)
+     * @param hasta Fecha de fin (excluida)
+     * @return Lista de gastos con relaciones cargadas ordenados por fecha descendente
+     */
     @Query("SELECT t FROM TransaccionModel t " +
            "LEFT JOIN FETCH t.categoria " +
            "LEFT JOIN FETCH t.tipoTransaccion " +
            "LEFT JOIN FETCH t.estadoTransaccion " +
            "WHERE t.idUsuario = :idUsuario " +
            "AND t.idTipo = 2 " +
-           "AND MONTH(t.fechaTransaccion) = :mes " +
-           "AND YEAR(t.fechaTransaccion) = :anio " +
+           "AND t.fechaTransaccion >= :desde " +
+           "AND t.fechaTransaccion < :hasta " +
            "ORDER BY t.fechaTransaccion DESC")
-    List<TransaccionModel> findByUsuarioMesAnio(@Param("idUsuario") Long idUsuario,
-                                                 @Param("mes") Integer mes,
-                                                 @Param("anio") Integer anio);
+    List<TransaccionModel> findGastosByIdUsuarioAndRangoFechas(@Param("idUsuario") Long idUsuario,
+                                                               @Param("desde") LocalDate desde,
+                                                               @Param("hasta") LocalDate hasta);
     
     /**
      * Busca todas las transacciones individuales asociadas a una transacción grupal
@@ -4,6 +4,8 @@ import com.lumeo.lumeo.models.usuarioModel;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,6 +13,7 @@ import java.util.UUID;
 public interface UsuarioRepository extends JpaRepository<usuarioModel, Long> {
     Optional<usuarioModel> findByUid(UUID uid);
     Optional<usuarioModel> findByNombreUsuario(String nombreUsuario);
+    List<usuarioModel> findByNombreUsuarioIn(Collection<String> nombresUsuario);
     boolean existsByNombreUsuario(String nombreUsuario);
     boolean existsByEmail(String email);
 }
\ No newline at end of file
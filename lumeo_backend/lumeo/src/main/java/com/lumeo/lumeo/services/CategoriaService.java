@@ -2,12 +2,14 @@ package com.lumeo.lumeo.services;
 
 import com.lumeo.lumeo.models.CategoriaModel;
 import com.lumeo.lumeo.repositories.CategoriaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class CategoriaService extends GenericService<CategoriaModel, Long> {
     
     @Autowired
@@ -1,26 +1,38 @@
 package com.lumeo.lumeo.services;
 
 import com.lumeo.lumeo.models.DivisaModel;
-import com.lumeo.lumeo.models.TransaccionModel;
-import com.lumeo.lumeo.models.MetaAhorroModel;
 import com.lumeo.lumeo.repositories.DivisaRepository;
 import com.lumeo.lumeo.repositories.TransaccionRepository;
 import com.lumeo.lumeo.repositories.MetaAhorroRepository;
+import com.lumeo.lumeo.util.LimitadorLog;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class ConversionDivisaService {
     
+    private static final Logger log = LoggerFactory.getLogger(ConversionDivisaService.class);
+    
     @Autowired
     private DivisaRepository divisaRepository;
     
@@ -30,16 +42,56 @@ public class ConversionDivisaService {
     @Autowired
     private MetaAhorroRepository metaAhorroRepository;
     
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private TasaCambioClient tasaCambioClient;
     
-    // API gratuita de tasas de cambio (sin necesidad de API key para uso básico)
-    private static final String API_URL = "https://api.exchangerate-api.com/v4/latest/";
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Métricas de la caché de tasas (lumeo.divisas.tasas.*)
+    private Counter aciertosCache;
+    private Counter fallosCache;
+    private Counter refrescosOk;
+    private Counter refrescosError;
     
     // Caché de tasas de cambio con timestamp
     private final Map<String, CachedRates> ratesCache = new ConcurrentHashMap<>();
     private static final long CACHE_DURATION_MS = 60 * 60 * 1000; // 1 hora
     
+    // Los aciertos de caché ocurren en cada fila convertida: solo se traza 1 de cada N
+    private static final int MUESTREO_ACIERTOS = 1000;
+    private static final LimitadorLog MUESTREO_ACIERTOS_CACHE = LimitadorLog.muestreo(MUESTREO_ACIERTOS);
+    
+    // Si la API cae, cada conversión falla: como mucho un aviso cada 10 segundos
+    private static final LimitadorLog LIMITE_ERRORES_API = LimitadorLog.maximo(1, Duration.ofSeconds(10));
+    private static final LimitadorLog LIMITE_TASA_NO_ENCONTRADA = LimitadorLog.maximo(1, Duration.ofSeconds(10));
+    
+    // Peticiones a la API en curso por divisa origen (evita pedir la misma divisa varias veces a la vez)
+    private final Map<String, CompletableFuture<JsonNode>> peticionesEnCurso = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void registrarMetricas() {
+        aciertosCache = Counter.builder("lumeo.divisas.tasas.cache")
+            .description("Consultas de tasas de cambio a la caché")
+            .tag("resultado", "acierto")
+            .register(meterRegistry);
+        fallosCache = Counter.builder("lumeo.divisas.tasas.cache")
+            .description("Consultas de tasas de cambio a la caché")
+            .tag("resultado", "fallo")
+            .register(meterRegistry);
+        refrescosOk = Counter.builder("lumeo.divisas.tasas.refrescos")
+            .description("Peticiones a la API de tasas de cambio")
+            .tag("resultado", "ok")
+            .register(meterRegistry);
+        refrescosError = Counter.builder("lumeo.divisas.tasas.refrescos")
+            .description("Peticiones a la API de tasas de cambio")
+            .tag("resultado", "error")
+            .register(meterRegistry);
+        Gauge.builder("lumeo.divisas.tasas.cache.tamano", ratesCache, Map::size)
+            .description("Divisas origen con tasas en caché")
+            .register(meterRegistry);
+    }
+    
     /**
      * Clase interna para almacenar tasas con timestamp
      */
@@ -60,6 +112,7 @@ public class ConversionDivisaService {
     /**
      * Convierte un monto de una divisa a otra usando tasas en tiempo real
      * OPTIMIZADO: Caché de tasas de cambio para evitar peticiones HTTP repetidas
+     * Si las tasas no están en caché espera a la API como mucho el timeout configurado
      */
     public Double convertirMonto(Double monto, String isoOrigen, String isoDestino) {
         // Si el monto es nulo, devolver null
@@ -72,53 +125,132 @@ public class ConversionDivisaService {
             return monto;
         }
         
+        // Verificar caché primero
+        CachedRates cachedRates = ratesCache.get(isoOrigen);
+        if (cachedRates != null && cachedRates.isValid()) {
+            aciertosCache.increment();
+            if (log.isTraceEnabled() && MUESTREO_ACIERTOS_CACHE.permitir()) {
+                log.trace("Usando caché de tasas para {} (1 de cada {} aciertos)", isoOrigen, MUESTREO_ACIERTOS);
+            }
+            return aplicarTasa(monto, cachedRates.rates, isoDestino);
+        }
+        
+        return convertirMontoAsync(monto, isoOrigen, isoDestino).join();
+    }
+    
+    /**
+     * Versión asíncrona de convertirMonto
+     * Si falla la obtención de tasas el futuro se completa con el monto original
+     */
+    public CompletableFuture<Double> convertirMontoAsync(Double monto, String isoOrigen, String isoDestino) {
+        if (monto == null || isoOrigen.equals(isoDestino)) {
+            return CompletableFuture.completedFuture(monto);
+        }
+        
+        return obtenerTasasAsync(isoOrigen).handle((rates, error) -> {
+            if (error != null) {
+                if (LIMITE_ERRORES_API.permitir()) {
+                    log.warn("Error al convertir divisa {} → {} ({} errores omitidos): {}",
+                             isoOrigen, isoDestino, LIMITE_ERRORES_API.omitidos(), error.getMessage());
+                }
+                return monto; // Devolver monto original si falla la conversión
+            }
+            return aplicarTasa(monto, rates, isoDestino);
+        });
+    }
+    
+    /**
+     * Obtiene las tasas de cambio desde una divisa, de la caché o de la API
+     * @param isoOrigen Código ISO de la divisa origen
+     * @return Futuro con las tasas (ISO destino → tasa)
+     */
+    public CompletableFuture<JsonNode> obtenerTasasAsync(String isoOrigen) {
+        CachedRates cachedRates = ratesCache.get(isoOrigen);
+        if (cachedRates != null && cachedRates.isValid()) {
+            aciertosCache.increment();
+            return CompletableFuture.completedFuture(cachedRates.rates);
+        }
+        fallosCache.increment();
+        
+        CompletableFuture<JsonNode> peticion = new CompletableFuture<>();
+        CompletableFuture<JsonNode> enCurso = peticionesEnCurso.putIfAbsent(isoOrigen, peticion);
+        if (enCurso != null) {
+            return enCurso;
+        }
+        
+        log.debug("Obteniendo tasas frescas para {}", isoOrigen);
         try {
-            // Verificar caché primero
-            CachedRates cachedRates = ratesCache.get(isoOrigen);
-            JsonNode rates;
-            
-            if (cachedRates != null && cachedRates.isValid()) {
-                // Usar caché
-                System.out.println("💾 Usando caché de tasas para " + isoOrigen);
-                rates = cachedRates.rates;
-            } else {
-                // Obtener tasas frescas de la API
-                System.out.println("🔄 Obteniendo tasas frescas para " + isoOrigen);
-                String url = API_URL + isoOrigen;
-                String response = restTemplate.getForObject(url, String.class);
-                
-                if (response == null) {
-                    System.err.println("No se pudo obtener respuesta de la API de divisas");
-                    return monto;
+            tasaCambioClient.obtenerTasas(isoOrigen).whenComplete((rates, error) -> {
+                if (error != null) {
+                    peticionesEnCurso.remove(isoOrigen, peticion);
+                    refrescosError.increment();
+                    peticion.completeExceptionally(error);
+                    return;
                 }
-                
-                // Parsear la respuesta JSON
-                JsonNode root = objectMapper.readTree(response);
-                rates = root.get("rates");
-                
-                // Guardar en caché
+                // Primero la caché y luego quitar la petición en curso: quien llegue entre medias
+                // encuentra una de las dos y no lanza otra llamada a la API
                 ratesCache.put(isoOrigen, new CachedRates(rates, System.currentTimeMillis()));
-                System.out.println("✅ Tasas guardadas en caché para " + isoOrigen);
-            }
-            
-            if (rates == null || !rates.has(isoDestino)) {
-                System.err.println("No se encontró tasa de cambio para " + isoDestino);
-                return monto;
+                peticionesEnCurso.remove(isoOrigen, peticion);
+                refrescosOk.increment();
+                log.debug("Tasas guardadas en caché para {}", isoOrigen);
+                peticion.complete(rates);
+            });
+        } catch (RuntimeException e) {
+            peticionesEnCurso.remove(isoOrigen, peticion);
+            refrescosError.increment();
+            peticion.completeExceptionally(e);
+        }
+        return peticion;
+    }
+    
+    /**
+     * Lanza en paralelo la obtención de tasas de varias divisas origen
+     * El futuro se completa cuando han terminado todas (aunque alguna falle)
+     * @param isosOrigen Códigos ISO de las divisas origen
+     */
+    public CompletableFuture<Void> precargarTasas(Collection<String> isosOrigen) {
+        CompletableFuture<?>[] peticiones = isosOrigen.stream()
+            .distinct()
+            .map(iso -> obtenerTasasAsync(iso).exceptionally(error -> null))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(peticiones);
+    }
+    
+    /**
+     * Lanza en paralelo la obtención de tasas de las divisas indicadas por ID
+     * Omite la divisa destino, que no necesita conversión
+     * @param idsDivisaOrigen IDs de las divisas origen (se ignoran los null)
+     * @param isoDestino Código ISO de la divisa destino
+     */
+    public CompletableFuture<Void> precargarTasasDivisas(Collection<Long> idsDivisaOrigen, String isoDestino) {
+        List<String> isosOrigen = idsDivisaOrigen.stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .map(divisaRepository::findById)
+            .flatMap(Optional::stream)
+            .map(DivisaModel::getIso)
+            .filter(iso -> !iso.equals(isoDestino))
+            .collect(Collectors.toList());
+        return precargarTasas(isosOrigen);
+    }
+    
+    /**
+     * Aplica la tasa de cambio hacia isoDestino y redondea a 2 decimales
+     */
+    private Double aplicarTasa(Double monto, JsonNode rates, String isoDestino) {
+        if (rates == null || !rates.has(isoDestino)) {
+            if (LIMITE_TASA_NO_ENCONTRADA.permitir()) {
+                log.warn("No se encontró tasa de cambio para {} ({} avisos omitidos)",
+                         isoDestino, LIMITE_TASA_NO_ENCONTRADA.omitidos());
             }
-            
-            // Obtener la tasa de conversión
-            Double tasa = rates.get(isoDestino).asDouble();
-            
-            // Convertir el monto
-            Double montoConvertido = monto * tasa;
-            
-            // Redondear a 2 decimales
-            return Math.round(montoConvertido * 100.0) / 100.0;
-        } catch (Exception e) {
-            System.err.println("Error al convertir divisa: " + e.getMessage());
-            e.printStackTrace();
-            return monto; // Devolver monto original si falla la conversión
+            return monto;
         }
+        
+        // Obtener la tasa de conversión
+        double tasa = rates.get(isoDestino).asDouble();
+        
+        // Convertir el monto y redondear a 2 decimales
+        return Math.round(monto * tasa * 100.0) / 100.0;
     }
     
     /**
@@ -126,45 +258,29 @@ public class ConversionDivisaService {
      */
     public void clearCache() {
         ratesCache.clear();
-        System.out.println("🧹 Caché de tasas de cambio limpiada");
+        log.info("Caché de tasas de cambio limpiada");
     }
     
     /**
      * Inicializa el campo id_divisa_original para transacciones existentes
      * IMPORTANTE: NO modifica los importes, solo registra la divisa original
+     * Es un único UPDATE sobre las filas sin divisa: no carga ninguna transacción
      */
     @Transactional
     public void convertirTransaccionesUsuario(Long idUsuario, Long idDivisaAnterior, Long idDivisaNueva) {
-        // Solo inicializar id_divisa_original si no existe
-        List<TransaccionModel> transacciones = transaccionRepository.findByIdUsuario(idUsuario);
-        
-        for (TransaccionModel transaccion : transacciones) {
-            if (transaccion.getIdDivisaOriginal() == null) {
-                transaccion.setIdDivisaOriginal(idDivisaAnterior);
-                transaccionRepository.save(transaccion);
-            }
-        }
-        
-        System.out.println("Inicializados campos id_divisa_original para " + transacciones.size() + " transacciones");
+        int actualizadas = transaccionRepository.inicializarDivisaOriginal(idUsuario, idDivisaAnterior);
+        log.info("Inicializados campos id_divisa_original para {} transacciones del usuario {}", actualizadas, idUsuario);
     }
     
     /**
      * Inicializa el campo id_divisa_original para metas de ahorro existentes
      * IMPORTANTE: NO modifica las cantidades, solo registra la divisa original
+     * Es un único UPDATE sobre las filas sin divisa: no carga ninguna meta
      */
     @Transactional
     public void convertirMetasAhorroUsuario(Long idUsuario, Long idDivisaAnterior, Long idDivisaNueva) {
-        // Solo inicializar id_divisa_original si no existe
-        List<MetaAhorroModel> metas = metaAhorroRepository.findByIdUsuario(idUsuario);
-        
-        for (MetaAhorroModel meta : metas) {
-            if (meta.getIdDivisaOriginal() == null) {
-                meta.setIdDivisaOriginal(idDivisaAnterior);
-                metaAhorroRepository.save(meta);
-            }
-        }
-        
-        System.out.println("Inicializados campos id_divisa_original para " + metas.size() + " metas de ahorro");
+        int actualizadas = metaAhorroRepository.inicializarDivisaOriginal(idUsuario, idDivisaAnterior);
+        log.info("Inicializados campos id_divisa_original para {} metas de ahorro del usuario {}", actualizadas, idUsuario);
     }
     
     /**
@@ -173,7 +289,7 @@ public class ConversionDivisaService {
     @Transactional
     public void convertirTodosMontosUsuario(Long idUsuario, Long idDivisaAnterior, Long idDivisaNueva) {
         if (idDivisaAnterior.equals(idDivisaNueva)) {
-            System.out.println("Las divisas son iguales, no se requiere conversión");
+            log.debug("Las divisas son iguales, no se requiere conversión");
             return;
         }
         
@@ -189,7 +305,7 @@ public class ConversionDivisaService {
             java.util.Currency javaCurrency = java.util.Currency.getInstance(iso);
             return javaCurrency.getSymbol();
         } catch (Exception e) {
-            System.err.println("Error al obtener símbolo de divisa: " + e.getMessage());
+            log.warn("Error al obtener símbolo de divisa {}: {}", iso, e.getMessage());
             return iso;
         }
     }
@@ -0,0 +1,271 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.dtos.AlertaPresupuestoDTO;
+import com.lumeo.lumeo.models.PresupuestoModel;
+import com.lumeo.lumeo.models.TransaccionModel;
+import com.lumeo.lumeo.repositories.PresupuestoRepository;
+import com.lumeo.lumeo.repositories.TransaccionRepository;
+import com.lumeo.lumeo.util.PeriodoUtil;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Alertas de presupuesto: avisa cuando el gasto de un mes alcanza el 80% o el 100%
+ * (lumeo.presupuestos.alertas.umbrales) de su presupuesto
+ *
+ * TransaccionService y TransaccionGrupalService publican cómo cambia el gasto de cada
+ * usuario y mes al crear, editar o eliminar transacciones. Después del commit, en un hilo
+ * aparte (@Async), el cambio se suma al gasto acumulado del mes: la consulta de gastos solo
+ * se lanza la primera vez que se evalúa un mes (o cuando el acumulado caduca), no en cada evento
+ *
+ * El acumulado es solo una estimación: al cargarlo puede incluir transacciones confirmadas
+ * cuyos eventos siguen en cola (y se sumarían dos veces), y con varias instancias cada una
+ * solo suma sus propios cambios. Por eso, antes de marcar un umbral como alcanzado, el gasto
+ * se vuelve a calcular en la base de datos: una consulta por cruce de umbral, no por evento
+ *
+ * Cada umbral se notifica una sola vez por presupuesto: presupuesto.umbral_notificado se
+ * actualiza con un UPDATE condicional y solo quien lo consigue envía la alerta, así no se
+ * repiten tras un reinicio ni con varias instancias del backend
+ * PresupuestoService lo vuelve a poner a null si cambian la cantidad o el mes del presupuesto
+ */
+@Service
+@Timed(value = "lumeo.servicio", histogram = true)
+public class EvaluadorPresupuestoService {
+    
+    private static final Logger log = LoggerFactory.getLogger(EvaluadorPresupuestoService.class);
+    
+    private static final long TIPO_GASTO = 2L;
+    
+    @Autowired
+    private ApplicationEventPublisher publisher;
+    
+    @Autowired
+    private PresupuestoRepository presupuestoRepository;
+    
+    @Autowired
+    private TransaccionRepository transaccionRepository;
+    
+    @Autowired
+    private List<NotificadorPresupuesto> notificadores;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${lumeo.presupuestos.alertas.umbrales:80,100}")
+    private int[] umbrales;
+    
+    @Value("${lumeo.presupuestos.alertas.ttl-ms:3600000}")
+    private long ttlMs;
+    
+    /**
+     * Cambio en el gasto de un usuario en un mes (positivo o negativo)
+     */
+    public record Aportacion(Long idUsuario, int periodo, double importe) {
+    }
+    
+    /**
+     * Evento publicado dentro de la transacción que modifica los gastos
+     */
+    public record GastosModificados(List<Aportacion> cambios) {
+    }
+    
+    private record ClaveMes(Long idUsuario, int periodo) {
+    }
+    
+    /**
+     * Gasto acumulado de un usuario en un mes
+     */
+    private static final class Acumulado {
+        private final double gasto;
+        private final long cargadoEn;
+        
+        Acumulado(double gasto, long cargadoEn) {
+            this.gasto = gasto;
+            this.cargadoEn = cargadoEn;
+        }
+    }
+    
+    private final Map<ClaveMes, Acumulado> acumulados = new ConcurrentHashMap<>();
+    
+    private Counter alertasEnviadas;
+    
+    @PostConstruct
+    void registrarMetricas() {
+        alertasEnviadas = Counter.builder("lumeo.presupuestos.alertas")
+            .description("Alertas de umbral de presupuesto enviadas")
+            .register(meterRegistry);
+        meterRegistry.gaugeMapSize("lumeo.presupuestos.acumulados", List.of(), acumulados);
+    }
+    
+    /**
+     * Lo que aporta una transacción al gasto de cada usuario: el creador su importe y
+     * el destinatario su importe_destinatario (mismo criterio que la consulta de gastos)
+     * Son copias: siguen siendo válidas aunque la entidad se modifique después
+     */
+    public List<Aportacion> aportacionesDe(TransaccionModel transaccion) {
+        List<Aportacion> aportaciones = new ArrayList<>(2);
+        if (transaccion == null || !Long.valueOf(TIPO_GASTO).equals(transaccion.getIdTipo())
+                || transaccion.getFechaTransaccion() == null) {
+            return aportaciones;
+        }
+        int periodo = PeriodoUtil.periodo(transaccion.getFechaTransaccion().getYear(), transaccion.getFechaTransaccion().getMonthValue());
+        if (transaccion.getIdUsuario() != null && transaccion.getImporte() != null) {
+            aportaciones.add(new Aportacion(transaccion.getIdUsuario(), periodo, transaccion.getImporte()));
+        }
+        if (transaccion.getIdDestinatario() != null && !transaccion.getIdDestinatario().equals(transaccion.getIdUsuario())
+                && transaccion.getImporteDestinatario() != null) {
+            aportaciones.add(new Aportacion(transaccion.getIdDestinatario(), periodo, transaccion.getImporteDestinatario()));
+        }
+        return aportaciones;
+    }
+    
+    /**
+     * Publica la diferencia entre lo que aportaban unas transacciones y lo que aportan ahora
+     * Sirve para altas (anteriores vacío), bajas (nuevas vacío) y ediciones
+     */
+    public void publicarCambio(Collection<Aportacion> anteriores, Collection<Aportacion> nuevas) {
+        Map<ClaveMes, Double> cambios = new LinkedHashMap<>();
+        anteriores.forEach(a -> cambios.merge(new ClaveMes(a.idUsuario(), a.periodo()), -a.importe(), Double::sum));
+        nuevas.forEach(a -> cambios.merge(new ClaveMes(a.idUsuario(), a.periodo()), a.importe(), Double::sum));
+        
+        List<Aportacion> resultado = new ArrayList<>(cambios.size());
+        cambios.forEach((clave, importe) -> {
+            if (importe != 0) {
+                resultado.add(new Aportacion(clave.idUsuario(), clave.periodo(), importe));
+            }
+        });
+        if (!resultado.isEmpty()) {
+            publisher.publishEvent(new GastosModificados(resultado));
+        }
+    }
+    
+    /**
+     * Aplica los cambios confirmados y evalúa los umbrales de los meses afectados
+     * Sin transacción activa (fallbackExecution) se evalúa en el momento
+     */
+    @Async("evaluadorPresupuestosExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmar(GastosModificados evento) {
+        for (Aportacion cambio : evento.cambios()) {
+            try {
+                evaluar(cambio);
+            } catch (Exception e) {
+                log.error("Error al evaluar el presupuesto del usuario {} ({}): {}", cambio.idUsuario(), cambio.periodo(), e.getMessage());
+            }
+        }
+    }
+    
+    private void evaluar(Aportacion cambio) {
+        ClaveMes clave = new ClaveMes(cambio.idUsuario(), cambio.periodo());
+        Optional<PresupuestoModel> presupuesto = presupuestoRepository.findByIdUsuarioAndPeriodo(cambio.idUsuario(), cambio.periodo());
+        if (presupuesto.isEmpty()) {
+            // Sin presupuesto no hace falta seguir el gasto; si se crea después se vuelve a cargar
+            acumulados.remove(clave);
+            return;
+        }
+        
+        // Solo la suma se hace dentro del mapa: la consulta de gastos va fuera para no
+        // retener el bloqueo de la entrada (y de las que comparten cubeta) durante la consulta
+        long ahora = System.currentTimeMillis();
+        Acumulado acumulado = acumulados.computeIfPresent(clave, (c, actual) ->
+            ahora - actual.cargadoEn > ttlMs ? null : new Acumulado(actual.gasto + cambio.importe(), actual.cargadoEn));
+        if (acumulado == null) {
+            // La consulta ya incluye este cambio, que está confirmado
+            // Si otro hilo lo ha cargado a la vez se queda la lectura más reciente
+            acumulado = acumulados.merge(clave, new Acumulado(cargarGasto(clave), ahora),
+                (actual, cargado) -> cargado.cargadoEn >= actual.cargadoEn ? cargado : actual);
+        }
+        
+        comprobarUmbrales(presupuesto.get(), clave, acumulado.gasto);
+    }
+    
+    private double cargarGasto(ClaveMes clave) {
+        Double gasto = transaccionRepository.calcularGastosPorMesAnioIncluyendoDestinatario(
+            clave.idUsuario(), clave.idUsuario(), PeriodoUtil.mes(clave.periodo()), PeriodoUtil.anio(clave.periodo())
+        );
+        return gasto != null ? gasto : 0.0;
+    }
+    
+    private void comprobarUmbrales(PresupuestoModel presupuesto, ClaveMes clave, double estimado) {
+        if (presupuesto.getCantidad() == null || presupuesto.getCantidad() <= 0) {
+            return;
+        }
+        int notificado = presupuesto.getUmbralNotificado() != null ? presupuesto.getUmbralNotificado() : 0;
+        if (umbralAlcanzado(presupuesto, estimado) <= notificado) {
+            return;
+        }
+        
+        // El acumulado dice que se ha cruzado un umbral: se confirma con el gasto real antes de
+        // marcarlo, porque la marca no se deshace. El valor leído corrige también el acumulado
+        double gasto = cargarGasto(clave);
+        acumulados.put(clave, new Acumulado(gasto, System.currentTimeMillis()));
+        int alcanzado = umbralAlcanzado(presupuesto, gasto);
+        if (alcanzado <= notificado) {
+            return;
+        }
+        
+        if (presupuestoRepository.marcarUmbralNotificado(presupuesto.getId(), alcanzado) == 0) {
+            // Otro hilo u otra instancia ya lo ha notificado
+            return;
+        }
+        
+        AlertaPresupuestoDTO alerta = new AlertaPresupuestoDTO(
+            presupuesto.getId(), presupuesto.getIdUsuario(), presupuesto.getMes(), presupuesto.getAnio(),
+            presupuesto.getCantidad(), Math.round(gasto * 100.0) / 100.0, alcanzado, LocalDateTime.now()
+        );
+        for (NotificadorPresupuesto notificador : notificadores) {
+            try {
+                notificador.notificar(alerta);
+            } catch (Exception e) {
+                log.error("Error al enviar la alerta del presupuesto {} con {}: {}",
+                          presupuesto.getId(), notificador.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        alertasEnviadas.increment();
+    }
+    
+    /**
+     * Umbral más alto alcanzado con ese gasto, o 0
+     * Solo se avisa del más alto (de 50% a 120% llega una sola alerta del 100%)
+     */
+    private int umbralAlcanzado(PresupuestoModel presupuesto, double gasto) {
+        double porcentaje = gasto * 100.0 / presupuesto.getCantidad();
+        int alcanzado = 0;
+        for (int umbral : umbrales) {
+            if (porcentaje >= umbral && umbral > alcanzado) {
+                alcanzado = umbral;
+            }
+        }
+        return alcanzado;
+    }
+    
+    /**
+     * Descarta los acumulados caducados para que la memoria no crezca con los meses pasados
+     */
+    @Scheduled(fixedDelayString = "${lumeo.presupuestos.alertas.ttl-ms:3600000}")
+    public void limpiarAcumulados() {
+        long ahora = System.currentTimeMillis();
+        acumulados.values().removeIf(a -> ahora - a.cargadoEn > ttlMs);
+    }
+}
@@ -0,0 +1,323 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.dtos.EventoGrupoDTO;
+import com.lumeo.lumeo.models.UsuarioGrupoModel;
+import com.lumeo.lumeo.repositories.GrupoRepository;
+import com.lumeo.lumeo.repositories.UsuarioGrupoRepository;
+import com.lumeo.lumeo.util.LimitadorLog;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notificaciones en tiempo real (Server-Sent Events) de la actividad de los grupos
+ *
+ * Los servicios llaman a publicar(...) dentro de su transacción y el evento solo se envía
+ * cuando la transacción se confirma (si hace rollback no se notifica nada). Se puede
+ * escuchar un grupo concreto o todos los grupos de un usuario.
+ *
+ * Cada suscriptor tiene un buffer acotado: si un cliente no lee y el buffer se llena,
+ * se cierra su conexión en lugar de acumular memoria o bloquear a quien publica.
+ * El cliente se reconecta y vuelve a pedir los datos. Un latido periódico mantiene
+ * abiertas las conexiones en los proxies y detecta los clientes desconectados.
+ */
+@Service
+@Timed(value = "lumeo.servicio", histogram = true)
+public class EventoGrupoService {
+    
+    private static final Logger log = LoggerFactory.getLogger(EventoGrupoService.class);
+    
+    // Los cierres por buffer lleno pueden venir en ráfaga: como mucho 5 avisos por minuto
+    private static final LimitadorLog LIMITE_BUFFER_LLENO = LimitadorLog.maximo(5, Duration.ofMinutes(1));
+    
+    public enum Tipo {
+        GRUPO_CREADO,
+        GRUPO_ACTUALIZADO,
+        GRUPO_ELIMINADO,
+        MIEMBRO_AGREGADO,
+        MIEMBRO_ELIMINADO,
+        TRANSACCION_CREADA,
+        TRANSACCION_ACTUALIZADA,
+        TRANSACCION_ELIMINADA
+    }
+    
+    /**
+     * Evento publicado dentro de la transacción que modifica el grupo
+     * idsUsuariosAdicionales: usuarios a notificar además de los miembros actuales
+     * (por ejemplo el miembro eliminado, o todos los miembros al eliminar el grupo)
+     */
+    public record Evento(Tipo tipo, Long idGrupo, Long idEntidad, Set<Long> idsUsuariosAdicionales) {
+    }
+    
+    /**
+     * Se ha alcanzado lumeo.eventos.max-suscriptores: el cliente debe reintentar más tarde
+     */
+    public static class LimiteSuscriptoresException extends RuntimeException {
+        public LimiteSuscriptoresException() {
+            super("Demasiadas conexiones de eventos abiertas");
+        }
+    }
+    
+    @Value("${lumeo.eventos.buffer:64}")
+    private int capacidadBuffer;
+    
+    @Value("${lumeo.eventos.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    @Value("${lumeo.eventos.max-suscriptores:2000}")
+    private int maxSuscriptores;
+    
+    @Value("${lumeo.eventos.hilos-envio:4}")
+    private int hilosEnvio;
+    
+    @Autowired
+    private ApplicationEventPublisher publisher;
+    
+    @Autowired
+    private UsuarioGrupoRepository usuarioGrupoRepository;
+    
+    @Autowired
+    private GrupoRepository grupoRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<Long, Set<Suscriptor>> suscriptoresPorGrupo = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Suscriptor>> suscriptoresPorUsuario = new ConcurrentHashMap<>();
+    private final AtomicInteger totalSuscriptores = new AtomicInteger();
+    private final AtomicLong secuencia = new AtomicLong();
+    
+    // Los envíos se hacen fuera del hilo que publica; cada suscriptor tiene como mucho una tarea pendiente
+    private ExecutorService envios;
+    
+    private Counter eventosEnviados;
+    private Counter desconexionesBufferLleno;
+    
+    /**
+     * Conexión SSE de un cliente con su buffer de eventos pendientes
+     */
+    private static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pendientes;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+        
+        Suscriptor(SseEmitter emitter, int capacidad) {
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(capacidad);
+        }
+    }
+    
+    @PostConstruct
+    void iniciar() {
+        AtomicInteger numeroHilo = new AtomicInteger();
+        envios = Executors.newFixedThreadPool(hilosEnvio, r -> {
+            Thread hilo = new Thread(r, "lumeo-sse-" + numeroHilo.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        
+        eventosEnviados = Counter.builder("lumeo.eventos.enviados")
+            .description("Eventos SSE encolados para los suscriptores")
+            .register(meterRegistry);
+        desconexionesBufferLleno = Counter.builder("lumeo.eventos.desconexiones")
+            .description("Suscriptores desconectados por no leer a tiempo (buffer lleno)")
+            .tag("motivo", "buffer-lleno")
+            .register(meterRegistry);
+        Gauge.builder("lumeo.eventos.suscriptores", totalSuscriptores, AtomicInteger::get)
+            .description("Conexiones SSE abiertas")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void detener() {
+        suscriptoresPorGrupo.values().forEach(s -> s.forEach(this::cerrar));
+        suscriptoresPorUsuario.values().forEach(s -> s.forEach(this::cerrar));
+        envios.shutdownNow();
+    }
+    
+    /**
+     * Abre un stream con los eventos de un grupo
+     * @throws LimiteSuscriptoresException si ya hay max-suscriptores conexiones abiertas
+     */
+    public SseEmitter suscribirGrupo(Long idGrupo) {
+        return suscribir(suscriptoresPorGrupo, idGrupo);
+    }
+    
+    /**
+     * Abre un stream con los eventos de todos los grupos de un usuario
+     * @throws LimiteSuscriptoresException si ya hay max-suscriptores conexiones abiertas
+     */
+    public SseEmitter suscribirUsuario(Long idUsuario) {
+        return suscribir(suscriptoresPorUsuario, idUsuario);
+    }
+    
+    private SseEmitter suscribir(Map<Long, Set<Suscriptor>> suscriptores, Long clave) {
+        if (totalSuscriptores.incrementAndGet() > maxSuscriptores) {
+            totalSuscriptores.decrementAndGet();
+            throw new LimiteSuscriptoresException();
+        }
+        
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(emitter, capacidadBuffer);
+        suscriptores.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(suscriptor);
+        
+        Runnable quitar = () -> quitar(suscriptores, clave, suscriptor);
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(() -> cerrar(suscriptor));
+        emitter.onError(e -> quitar.run());
+        
+        // Primer evento: confirma la conexión y fija el tiempo de reconexión del cliente
+        encolar(suscriptor, SseEmitter.event().name("conectado").reconnectTime(3000).data(clave));
+        log.debug("Nueva suscripción SSE ({} abiertas)", totalSuscriptores.get());
+        return emitter;
+    }
+    
+    private void quitar(Map<Long, Set<Suscriptor>> suscriptores, Long clave, Suscriptor suscriptor) {
+        suscriptores.computeIfPresent(clave, (k, conjunto) -> {
+            if (conjunto.remove(suscriptor)) {
+                totalSuscriptores.decrementAndGet();
+            }
+            return conjunto.isEmpty() ? null : conjunto;
+        });
+        suscriptor.cerrado.set(true);
+    }
+    
+    /**
+     * Publica un evento del grupo; se enviará cuando la transacción actual se confirme
+     */
+    public void publicar(Tipo tipo, Long idGrupo, Long idEntidad) {
+        publicar(tipo, idGrupo, idEntidad, Set.of());
+    }
+    
+    public void publicar(Tipo tipo, Long idGrupo, Long idEntidad, Set<Long> idsUsuariosAdicionales) {
+        publisher.publishEvent(new Evento(tipo, idGrupo, idEntidad, idsUsuariosAdicionales));
+    }
+    
+    /**
+     * Reparte el evento entre los suscriptores del grupo y de sus miembros
+     * Sin transacción activa (fallbackExecution) se envía en el momento
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmar(Evento evento) {
+        if (totalSuscriptores.get() == 0) {
+            return;
+        }
+        
+        EventoGrupoDTO dto = new EventoGrupoDTO(
+            secuencia.incrementAndGet(), evento.tipo().name(), evento.idGrupo(), evento.idEntidad(), LocalDateTime.now()
+        );
+        
+        entregar(suscriptoresPorGrupo.get(evento.idGrupo()), dto);
+        
+        // Los miembros solo se consultan si hay alguien escuchando por usuario
+        if (!suscriptoresPorUsuario.isEmpty()) {
+            Set<Long> idsUsuarios = new HashSet<>(evento.idsUsuariosAdicionales());
+            usuarioGrupoRepository.findByIdGrupo(evento.idGrupo()).stream()
+                .map(UsuarioGrupoModel::getIdUsuario)
+                .forEach(idsUsuarios::add);
+            grupoRepository.findById(evento.idGrupo()).ifPresent(g -> {
+                if (g.getIdCreador() != null) {
+                    idsUsuarios.add(g.getIdCreador());
+                }
+            });
+            idsUsuarios.forEach(idUsuario -> entregar(suscriptoresPorUsuario.get(idUsuario), dto));
+        }
+    }
+    
+    private void entregar(Set<Suscriptor> suscriptores, EventoGrupoDTO dto) {
+        if (suscriptores == null) {
+            return;
+        }
+        for (Suscriptor suscriptor : suscriptores) {
+            encolar(suscriptor, SseEmitter.event().id(String.valueOf(dto.getId())).name(dto.getTipo()).data(dto));
+            eventosEnviados.increment();
+        }
+    }
+    
+    /**
+     * Latido periódico: comentario SSE vacío que mantiene viva la conexión
+     * Si el cliente ya no está, el envío falla y se libera la suscripción
+     */
+    @Scheduled(fixedDelayString = "${lumeo.eventos.heartbeat-ms:15000}")
+    public void latido() {
+        suscriptoresPorGrupo.values().forEach(s -> s.forEach(suscriptor -> encolar(suscriptor, SseEmitter.event().comment("ping"))));
+        suscriptoresPorUsuario.values().forEach(s -> s.forEach(suscriptor -> encolar(suscriptor, SseEmitter.event().comment("ping"))));
+    }
+    
+    private void encolar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) {
+        if (suscriptor.cerrado.get()) {
+            return;
+        }
+        if (!suscriptor.pendientes.offer(evento)) {
+            // Cliente demasiado lento: se le desconecta y al reconectar recargará los datos
+            desconexionesBufferLleno.increment();
+            if (LIMITE_BUFFER_LLENO.permitir()) {
+                log.warn("Suscriptor SSE desconectado por buffer lleno ({} eventos, {} avisos omitidos)",
+                         capacidadBuffer, LIMITE_BUFFER_LLENO.omitidos());
+            }
+            cerrar(suscriptor);
+            return;
+        }
+        programarEnvio(suscriptor);
+    }
+    
+    private void programarEnvio(Suscriptor suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> vaciar(suscriptor));
+        }
+    }
+    
+    private void vaciar(Suscriptor suscriptor) {
+        try {
+            SseEmitter.SseEventBuilder evento;
+            while (!suscriptor.cerrado.get() && (evento = suscriptor.pendientes.poll()) != null) {
+                suscriptor.emitter.send(evento);
+            }
+        } catch (Exception e) {
+            // Cliente desconectado: onError/onCompletion liberan la suscripción
+            log.trace("Error enviando evento SSE: {}", e.getMessage());
+            cerrar(suscriptor);
+        } finally {
+            suscriptor.enviando.set(false);
+            // Pueden haber llegado eventos mientras se terminaba el bucle
+            if (!suscriptor.cerrado.get() && !suscriptor.pendientes.isEmpty()) {
+                programarEnvio(suscriptor);
+            }
+        }
+    }
+    
+    private void cerrar(Suscriptor suscriptor) {
+        if (suscriptor.cerrado.compareAndSet(false, true)) {
+            suscriptor.pendientes.clear();
+            suscriptor.emitter.complete();
+        }
+    }
+}
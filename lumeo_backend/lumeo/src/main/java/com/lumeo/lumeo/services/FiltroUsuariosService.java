@@ -0,0 +1,277 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.util.FiltroBloom;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Filtros de Bloom sobre usuario.nombre_usuario y usuario.email para responder sin
+ * consultar la base de datos cuando un nombre o un correo seguro que no existen
+ * (comprobación de disponibilidad en el registro, búsqueda de usuarios al invitar a un grupo)
+ *
+ * Si el filtro dice "puede existir" hay que confirmarlo con la consulta normal
+ * Los valores se normalizan (sin espacios en los extremos y en minúsculas), así el filtro
+ * responde "puede existir" ante cualquier variante que la base de datos pudiera encontrar
+ *
+ * La mayoría de usuarios los crea el trigger de Supabase Auth, fuera del backend, y los cambios
+ * de nombre o correo pueden hacerse en otra instancia o en Supabase, así que además de registrar
+ * lo que escribe UsuarioService se leen cada refresco-ms las filas con id nuevo o con
+ * fecha_modificacion reciente. Esa fecha la pone el trigger trg_usuario_fecha_modificacion
+ * (sql/05_fecha_modificacion_usuario.sql); si no está instalado el filtro no se activa,
+ * porque un cambio que no viera daría "no existe" para un usuario real
+ * Un alta o un cambio hecho fuera puede tardar ese intervalo en aparecer; el trigger de Auth
+ * vuelve a comprobar nombre y correo al darlo de alta, por lo que el desfase no permite duplicados
+ * Los filtros no admiten borrados: se reconstruyen cada reconstruccion-ms para olvidar los
+ * nombres y correos que ya no existen y ajustar el tamaño al número de usuarios
+ */
+@Service
+@Timed(value = "lumeo.servicio", histogram = true)
+public class FiltroUsuariosService {
+    
+    private static final Logger log = LoggerFactory.getLogger(FiltroUsuariosService.class);
+    
+    // Las identidades se asignan al insertar pero se confirman en cualquier orden:
+    // al refrescar se vuelven a leer los últimos ids por si alguno se confirmó tarde
+    private static final long HOLGURA_IDS = 100;
+    
+    // Igual con las fechas: now() es la hora de inicio de la transacción, que puede confirmarse más tarde
+    private static final Duration HOLGURA_MODIFICACION = Duration.ofMinutes(5);
+    
+    private static final LocalDateTime SIN_MODIFICACIONES = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private static final String TRIGGER_FECHA_MODIFICACION = "trg_usuario_fecha_modificacion";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${lumeo.usuarios.filtro.enabled:true}")
+    private boolean habilitado;
+    
+    @Value("${lumeo.usuarios.filtro.falsos-positivos:0.01}")
+    private double probabilidadFalsoPositivo;
+    
+    /**
+     * Filtros, último id y última fecha de modificación leídos; se sustituye entero al reconstruir
+     */
+    private static final class Estado {
+        private final FiltroBloom nombres;
+        private final FiltroBloom emails;
+        private volatile long ultimoId;
+        private volatile LocalDateTime ultimaModificacion = SIN_MODIFICACIONES;
+        
+        Estado(int elementosEsperados, double probabilidadFalsoPositivo) {
+            this.nombres = new FiltroBloom(elementosEsperados, probabilidadFalsoPositivo);
+            this.emails = new FiltroBloom(elementosEsperados, probabilidadFalsoPositivo);
+        }
+        
+        void agregar(String nombreUsuario, String email) {
+            if (nombreUsuario != null) {
+                nombres.add(normalizar(nombreUsuario));
+            }
+            if (email != null) {
+                emails.add(normalizar(email));
+            }
+        }
+    }
+    
+    private volatile Estado estado;
+    
+    // Altas registradas mientras se reconstruye: se añaden también a los filtros nuevos
+    // ReentrantLock y no synchronized: no fija los hilos virtuales del perfil prod a su hilo portador
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private List<String[]> altasDuranteReconstruccion;
+    
+    private Counter descartadas;
+    private Counter posibles;
+    
+    @PostConstruct
+    void registrarMetricas() {
+        descartadas = Counter.builder("lumeo.usuarios.filtro.consultas")
+            .tag("resultado", "no_existe")
+            .description("Comprobaciones resueltas por el filtro sin consultar la base de datos")
+            .register(meterRegistry);
+        posibles = Counter.builder("lumeo.usuarios.filtro.consultas")
+            .tag("resultado", "puede_existir")
+            .description("Comprobaciones que el filtro deja pasar a la base de datos")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * @return false si seguro que no hay ningún usuario con ese nombre; true si puede haberlo
+     * (o si el filtro aún no está cargado)
+     */
+    public boolean puedeExistirNombreUsuario(String nombreUsuario) {
+        Estado actual = estado;
+        if (actual == null || nombreUsuario == null) {
+            return true;
+        }
+        return contar(actual.nombres.mightContain(normalizar(nombreUsuario)));
+    }
+    
+    /**
+     * @return false si seguro que no hay ningún usuario con ese correo; true si puede haberlo
+     * (o si el filtro aún no está cargado)
+     */
+    public boolean puedeExistirEmail(String email) {
+        Estado actual = estado;
+        if (actual == null || email == null) {
+            return true;
+        }
+        return contar(actual.emails.mightContain(normalizar(email)));
+    }
+    
+    /**
+     * Añade el nombre y el correo de un usuario creado o modificado por el backend
+     * No espera al commit: si la transacción se deshace solo queda un falso positivo
+     */
+    public void registrar(String nombreUsuario, String email) {
+        cerrojo.lock();
+        try {
+            Estado actual = estado;
+            if (actual != null) {
+                actual.agregar(nombreUsuario, email);
+            }
+            if (altasDuranteReconstruccion != null) {
+                altasDuranteReconstruccion.add(new String[] {nombreUsuario, email});
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    /**
+     * Construye los filtros al arrancar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruir();
+    }
+    
+    /**
+     * Vuelve a construir los filtros desde la tabla usuario, dimensionados para el doble
+     * de los usuarios actuales. Las filas se recorren en streaming sin crear entidades
+     */
+    @Scheduled(fixedDelayString = "${lumeo.usuarios.filtro.reconstruccion-ms:3600000}",
+               initialDelayString = "${lumeo.usuarios.filtro.reconstruccion-ms:3600000}")
+    public void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+        cerrojo.lock();
+        try {
+            altasDuranteReconstruccion = new ArrayList<>();
+        } finally {
+            cerrojo.unlock();
+        }
+        try {
+            if (!hayTriggerFechaModificacion()) {
+                estado = null;
+                log.warn("Filtro de nombres de usuario y correos desactivado: falta el trigger {} sobre usuario "
+                         + "(sql/05_fecha_modificacion_usuario.sql)", TRIGGER_FECHA_MODIFICACION);
+                descartarAltasDuranteReconstruccion();
+                return;
+            }
+            long inicio = System.nanoTime();
+            Long total = jdbcTemplate.queryForObject("SELECT count(*) FROM usuario", Long.class);
+            int esperados = (int) Math.min(Integer.MAX_VALUE / 2, Math.max(1024, (total != null ? total : 0) * 2));
+            Estado nuevo = new Estado(esperados, probabilidadFalsoPositivo);
+            leerDesde(nuevo, 0, SIN_MODIFICACIONES);
+            
+            cerrojo.lock();
+            try {
+                altasDuranteReconstruccion.forEach(alta -> nuevo.agregar(alta[0], alta[1]));
+                altasDuranteReconstruccion = null;
+                estado = nuevo;
+            } finally {
+                cerrojo.unlock();
+            }
+            log.info("Filtro de nombres de usuario y correos cargado: {} usuarios, {} bits, {} hashes en {} ms",
+                     total, nuevo.nombres.numBits(), nuevo.nombres.numHashes(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (Exception e) {
+            descartarAltasDuranteReconstruccion();
+            log.error("Error al cargar el filtro de nombres de usuario y correos: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Añade los usuarios dados de alta o modificados fuera del backend (trigger de Supabase Auth,
+     * otras instancias). Solo lee las filas con id posterior al último visto o modificadas después
+     * de la última fecha vista, por la clave primaria y el índice de fecha_modificacion
+     */
+    @Scheduled(fixedDelayString = "${lumeo.usuarios.filtro.refresco-ms:15000}",
+               initialDelayString = "${lumeo.usuarios.filtro.refresco-ms:15000}")
+    public void refrescar() {
+        Estado actual = estado;
+        if (!habilitado || actual == null) {
+            return;
+        }
+        try {
+            leerDesde(actual, Math.max(0, actual.ultimoId - HOLGURA_IDS),
+                      actual.ultimaModificacion.minus(HOLGURA_MODIFICACION));
+        } catch (Exception e) {
+            log.error("Error al refrescar el filtro de nombres de usuario y correos: {}", e.getMessage());
+        }
+    }
+    
+    private void leerDesde(Estado destino, long desdeId, LocalDateTime desdeModificacion) {
+        long[] maximo = {destino.ultimoId};
+        LocalDateTime[] ultimaModificacion = {destino.ultimaModificacion};
+        jdbcTemplate.query("SELECT id, nombre_usuario, email, fecha_modificacion FROM usuario " +
+                           "WHERE id > ? OR fecha_modificacion > ?", rs -> {
+            destino.agregar(rs.getString(2), rs.getString(3));
+            maximo[0] = Math.max(maximo[0], rs.getLong(1));
+            LocalDateTime modificacion = rs.getObject(4, LocalDateTime.class);
+            if (modificacion != null && modificacion.isAfter(ultimaModificacion[0])) {
+                ultimaModificacion[0] = modificacion;
+            }
+        }, desdeId, desdeModificacion);
+        destino.ultimoId = maximo[0];
+        destino.ultimaModificacion = ultimaModificacion[0];
+    }
+    
+    private boolean hayTriggerFechaModificacion() {
+        Boolean existe = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = to_regclass('public.usuario') AND tgname = ?)",
+            Boolean.class, TRIGGER_FECHA_MODIFICACION);
+        return Boolean.TRUE.equals(existe);
+    }
+    
+    private void descartarAltasDuranteReconstruccion() {
+        cerrojo.lock();
+        try {
+            altasDuranteReconstruccion = null;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    private boolean contar(boolean puedeExistir) {
+        (puedeExistir ? posibles : descartadas).increment();
+        return puedeExistir;
+    }
+    
+    private static String normalizar(String valor) {
+        return valor.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,10 +1,12 @@
 package com.lumeo.lumeo.services;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
+@Timed(value = "lumeo.servicio", histogram = true)
 public abstract class GenericService<T, ID> {
     
     protected abstract JpaRepository<T, ID> getRepository();
@@ -8,10 +8,15 @@ import com.lumeo.lumeo.models.DivisaModel;
 import com.lumeo.lumeo.repositories.TransaccionRepository;
 import com.lumeo.lumeo.repositories.UsuarioRepository;
 import com.lumeo.lumeo.repositories.DivisaRepository;
+import com.lumeo.lumeo.util.LimitadorLog;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.List;
@@ -22,8 +27,11 @@ import java.util.Locale;
 import java.util.Optional;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class GraficosService {
     
+    private static final Logger log = LoggerFactory.getLogger(GraficosService.class);
+    
     @Autowired
     private TransaccionRepository transaccionRepository;
     
@@ -36,6 +44,9 @@ public class GraficosService {
     @Autowired
     private ConversionDivisaService conversionDivisaService;
     
+    // Los fallos al leer la categoría se repiten por cada fila: como mucho 5 avisos por minuto
+    private static final LimitadorLog LIMITE_ERRORES_CATEGORIA = LimitadorLog.maximo(5, Duration.ofMinutes(1));
+    
     // Colores predefinidos para el gráfico circular
     private static final String[] COLORES_GRAFICOS = {
         "#FF6384", "#36A2EB", "#FFCE56", "#4BC0C0", "#9966FF",
@@ -48,7 +59,7 @@ public class GraficosService {
      * @return Lista de gastos por categoría
      */
     public List<GastoPorCategoriaDTO> obtenerGastosPorCategoria(Long usuarioId) {
-        System.out.println("🔍 Obteniendo gastos por categoría para usuario: " + usuarioId);
+        log.debug("Obteniendo gastos por categoría para usuario {}", usuarioId);
         
         // Obtener la divisa del usuario
         String codigoDivisaUsuario = "EUR";
@@ -65,11 +76,11 @@ public class GraficosService {
         LocalDate inicioMes = hoy.withDayOfMonth(1);
         LocalDate finMes = hoy.withDayOfMonth(hoy.lengthOfMonth());
         
-        System.out.println("📅 Período: " + inicioMes + " a " + finMes);
+        log.debug("Período: {} a {}", inicioMes, finMes);
         
         // Obtener transacciones del mes actual con categoría cargada (como creador O destinatario)
         List<TransaccionModel> transacciones = transaccionRepository.findByIdUsuarioOrIdDestinatarioAndFechaBetweenWithCategoria(usuarioId, usuarioId, inicioMes, finMes);
-        System.out.println("📊 Transacciones encontradas: " + transacciones.size());
+        log.debug("Transacciones encontradas: {}", transacciones.size());
         
         // Agrupar gastos por categoría
         Map<Long, GastoPorCategoriaDTO> gastosPorCategoria = new HashMap<>();
@@ -132,7 +143,7 @@ public class GraficosService {
         }
         
         List<GastoPorCategoriaDTO> resultado = new ArrayList<>(gastosPorCategoria.values());
-        System.out.println("📊 Categorías con gastos: " + resultado.size());
+        log.debug("Categorías con gastos: {}", resultado.size());
         
         return resultado;
     }
@@ -146,7 +157,10 @@ public class GraficosService {
                 return transaccion.getCategoria().getNombre();
             }
         } catch (Exception e) {
-            System.out.println("⚠️ No se pudo obtener nombre de categoría: " + e.getMessage());
+            if (LIMITE_ERRORES_CATEGORIA.permitir()) {
+                log.warn("No se pudo obtener nombre de categoría ({} avisos omitidos): {}",
+                         LIMITE_ERRORES_CATEGORIA.omitidos(), e.getMessage());
+            }
         }
         return "Categoría " + transaccion.getIdCategoria();
     }
@@ -160,7 +174,10 @@ public class GraficosService {
                 return transaccion.getCategoria().getColor();
             }
         } catch (Exception e) {
-            System.out.println("⚠️ No se pudo obtener color de categoría: " + e.getMessage());
+            if (LIMITE_ERRORES_CATEGORIA.permitir()) {
+                log.warn("No se pudo obtener color de categoría ({} avisos omitidos): {}",
+                         LIMITE_ERRORES_CATEGORIA.omitidos(), e.getMessage());
+            }
         }
         // Usar color por defecto si no está disponible
         return COLORES_GRAFICOS[indice % COLORES_GRAFICOS.length];
@@ -173,7 +190,7 @@ public class GraficosService {
      * @return Lista de evolución mensual
      */
     public List<EvolucionMensualDTO> obtenerEvolucionMensual(Long usuarioId, int numeroMeses) {
-        System.out.println("🔍 Obteniendo evolución mensual para usuario: " + usuarioId + ", últimos " + numeroMeses + " meses");
+        log.debug("Obteniendo evolución mensual para usuario {}, últimos {} meses", usuarioId, numeroMeses);
         
         // Obtener la divisa del usuario
         String codigoDivisaUsuario = "EUR";
@@ -193,8 +210,6 @@ public class GraficosService {
             LocalDate inicioMes = mesConsulta.withDayOfMonth(1);
             LocalDate finMes = mesConsulta.withDayOfMonth(mesConsulta.lengthOfMonth());
             
-            System.out.println("📅 Consultando mes: " + mesConsulta.getMonth() + " " + mesConsulta.getYear());
-            
             // Obtener transacciones del mes (como creador O destinatario)
             List<TransaccionModel> transacciones = transaccionRepository.findByIdUsuarioOrIdDestinatarioAndFechaBetween(usuarioId, usuarioId, inicioMes, finMes);
             
@@ -259,7 +274,7 @@ public class GraficosService {
             );
             
             evolucion.add(mesDTO);
-            System.out.println("📊 " + nombreMes + ": Ingresos=" + totalIngresos + ", Gastos=" + totalGastos);
+            log.debug("{} {}: ingresos={}, gastos={}", nombreMes, mesConsulta.getYear(), totalIngresos, totalGastos);
         }
         
         return evolucion;
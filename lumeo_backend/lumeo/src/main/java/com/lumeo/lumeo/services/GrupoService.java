@@ -8,24 +8,41 @@ import com.lumeo.lumeo.models.GrupoModel;
 import com.lumeo.lumeo.models.UsuarioGrupoModel;
 import com.lumeo.lumeo.models.usuarioModel;
 import com.lumeo.lumeo.repositories.GrupoRepository;
+import com.lumeo.lumeo.repositories.SaldoGrupoRepository;
 import com.lumeo.lumeo.repositories.TransaccionGrupalRepository;
 import com.lumeo.lumeo.repositories.UsuarioGrupoRepository;
 import com.lumeo.lumeo.repositories.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class GrupoService extends GenericService<GrupoModel, Long> {
     
+    private static final Logger log = LoggerFactory.getLogger(GrupoService.class);
+    
+    // Filas por INSERT multi-fila al agregar miembros
+    private static final int FILAS_POR_INSERT = 1000;
+    
     @Autowired
     private GrupoRepository grupoRepository;
     
@@ -38,16 +55,82 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
     @Autowired
     private TransaccionGrupalRepository transaccionGrupalRepository;
     
+    @Autowired
+    private SaldoGrupoRepository saldoGrupoRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EventoGrupoService eventoGrupoService;
+    
+    @Autowired
+    private FiltroUsuariosService filtroUsuarios;
+    
     @Override
     protected JpaRepository<GrupoModel, Long> getRepository() {
         return grupoRepository;
     }
     
+    /**
+     * Crea un grupo sin miembros (POST /api/grupos); el creador lo ve en sus grupos
+     * Publica GRUPO_CREADO igual que crearGrupoConUsuarios
+     */
+    @Transactional
+    @Override
+    public GrupoModel create(GrupoModel grupo) {
+        GrupoModel guardado = grupoRepository.save(grupo);
+        eventoGrupoService.publicar(EventoGrupoService.Tipo.GRUPO_CREADO, guardado.getId(), guardado.getId());
+        return guardado;
+    }
+    
+    /**
+     * Guarda un grupo nuevo o existente pasando por create o editById, que publican los eventos
+     */
+    @Transactional
+    @Override
+    public GrupoModel save(GrupoModel grupo) {
+        if (grupo.getId() == null) {
+            return create(grupo);
+        }
+        return editById(grupo.getId(), grupo).orElseGet(() -> create(grupo));
+    }
+    
+    /**
+     * Actualiza un grupo (PUT /api/grupos/{id})
+     * Publica GRUPO_ACTUALIZADO para los miembros (y para el creador anterior si cambia)
+     */
+    @Transactional
+    @Override
+    public Optional<GrupoModel> editById(Long id, GrupoModel grupo) {
+        Optional<GrupoModel> existente = grupoRepository.findById(id);
+        if (existente.isEmpty()) {
+            return Optional.empty();
+        }
+        // Se copia antes de guardar: save() vuelca los valores nuevos sobre la entidad cargada
+        Long idCreadorAnterior = existente.get().getIdCreador();
+        
+        grupo.setId(id);
+        GrupoModel guardado = grupoRepository.save(grupo);
+        Set<Long> adicionales = Set.of();
+        if (!Objects.equals(idCreadorAnterior, guardado.getIdCreador())) {
+            // El creador anterior también recibe el evento aunque ya no vea el grupo
+            if (idCreadorAnterior != null) {
+                adicionales = Set.of(idCreadorAnterior);
+            }
+        }
+        eventoGrupoService.publicar(EventoGrupoService.Tipo.GRUPO_ACTUALIZADO, id, id, adicionales);
+        return Optional.of(guardado);
+    }
+    
     /**
      * Verifica si un usuario existe por nombre de usuario
+     * Si el filtro de usuarios descarta el nombre no se consulta la base de datos
      */
     public VerificarUsuarioDTO verificarUsuario(String nombreUsuario) {
-        Optional<usuarioModel> usuario = usuarioRepository.findByNombreUsuario(nombreUsuario);
+        Optional<usuarioModel> usuario = filtroUsuarios.puedeExistirNombreUsuario(nombreUsuario)
+            ? usuarioRepository.findByNombreUsuario(nombreUsuario)
+            : Optional.empty();
         
         if (usuario.isPresent()) {
             usuarioModel u = usuario.get();
@@ -65,6 +148,9 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
     
     /**
      * Crea un grupo con los usuarios especificados, incluyendo al creador
+     * Los nombres de usuario se resuelven con una sola consulta (IN) y todas las relaciones
+     * usuario_grupo se insertan en una sola sentencia, sea cual sea el número de invitados.
+     * Los nombres que no existen se devuelven en usuariosNoEncontrados
      */
     @Transactional
     public GrupoConMiembrosDTO crearGrupoConUsuarios(CrearGrupoDTO crearGrupoDTO, Long idUsuarioCreador) {
@@ -76,105 +162,70 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
         
         GrupoModel grupoGuardado = grupoRepository.save(grupo);
         
-        // Agregar el usuario creador al grupo
-        UsuarioGrupoModel relacionCreador = new UsuarioGrupoModel();
-        relacionCreador.setIdUsuario(idUsuarioCreador);
-        relacionCreador.setIdGrupo(grupoGuardado.getId());
-        usuarioGrupoRepository.save(relacionCreador);
-        
         List<MiembroGrupoDTO> miembros = new ArrayList<>();
+        List<String> usuariosNoEncontrados = new ArrayList<>();
+        Set<Long> idsMiembros = new LinkedHashSet<>();
         
         // Agregar el creador a la lista de miembros
-        usuarioRepository.findById(idUsuarioCreador).ifPresent(creador -> {
-            miembros.add(new MiembroGrupoDTO(
-                creador.getId(),
-                creador.getNombreUsuario(),
-                creador.getNombre(),
-                creador.getApellido(),
-                creador.getEmail()
-            ));
-        });
+        idsMiembros.add(idUsuarioCreador);
+        usuarioRepository.findById(idUsuarioCreador).ifPresent(creador -> miembros.add(aMiembro(creador)));
         
-        // Agregar los otros usuarios al grupo
+        // Resolver todos los nombres de usuario invitados en una sola consulta
         if (crearGrupoDTO.getNombresUsuarios() != null && !crearGrupoDTO.getNombresUsuarios().isEmpty()) {
-            for (String nombreUsuario : crearGrupoDTO.getNombresUsuarios()) {
-                Optional<usuarioModel> usuario = usuarioRepository.findByNombreUsuario(nombreUsuario);
-                
-                if (usuario.isPresent() && !usuario.get().getId().equals(idUsuarioCreador)) {
-                    // Solo agregar si no es el creador (para evitar duplicados)
-                    usuarioModel u = usuario.get();
-                    
-                    UsuarioGrupoModel relacion = new UsuarioGrupoModel();
-                    relacion.setIdUsuario(u.getId());
-                    relacion.setIdGrupo(grupoGuardado.getId());
-                    usuarioGrupoRepository.save(relacion);
-                    
-                    miembros.add(new MiembroGrupoDTO(
-                        u.getId(),
-                        u.getNombreUsuario(),
-                        u.getNombre(),
-                        u.getApellido(),
-                        u.getEmail()
-                    ));
+            Set<String> nombresUsuarios = new LinkedHashSet<>(crearGrupoDTO.getNombresUsuarios());
+            Map<String, usuarioModel> usuariosPorNombre = usuarioRepository.findByNombreUsuarioIn(nombresUsuarios).stream()
+                .collect(Collectors.toMap(usuarioModel::getNombreUsuario, Function.identity(), (a, b) -> a));
+            
+            for (String nombreUsuario : nombresUsuarios) {
+                usuarioModel u = usuariosPorNombre.get(nombreUsuario);
+                if (u == null) {
+                    usuariosNoEncontrados.add(nombreUsuario);
+                } else if (idsMiembros.add(u.getId())) {
+                    // Solo agregar si no es el creador ni está repetido (para evitar duplicados)
+                    miembros.add(aMiembro(u));
                 }
             }
         }
         
-        return new GrupoConMiembrosDTO(grupoGuardado, miembros);
-    }
-    
-    /**
-     * Obtiene un grupo con sus miembros (incluyendo al creador)
-     */
-    public Optional<GrupoConMiembrosDTO> obtenerGrupoConMiembros(Long idGrupo) {
-        Optional<GrupoModel> grupo = grupoRepository.findById(idGrupo);
+        // Agregar al creador y a los invitados al grupo
+        insertarMiembros(grupoGuardado.getId(), idsMiembros);
         
-        if (grupo.isEmpty()) {
-            return Optional.empty();
+        if (!usuariosNoEncontrados.isEmpty()) {
+            log.debug("Grupo {} creado sin {} usuarios no encontrados", grupoGuardado.getId(), usuariosNoEncontrados.size());
         }
         
-        GrupoModel grupoModel = grupo.get();
-        List<MiembroGrupoDTO> miembros = new ArrayList<>();
+        eventoGrupoService.publicar(EventoGrupoService.Tipo.GRUPO_CREADO, grupoGuardado.getId(), grupoGuardado.getId());
         
-        // Agregar el creador del grupo primero (si existe)
-        if (grupoModel.getIdCreador() != null) {
-            Optional<usuarioModel> creador = usuarioRepository.findById(grupoModel.getIdCreador());
-            if (creador.isPresent()) {
-                usuarioModel c = creador.get();
-                miembros.add(new MiembroGrupoDTO(
-                    c.getId(),
-                    c.getNombreUsuario(),
-                    c.getNombre(),
-                    c.getApellido(),
-                    c.getEmail()
-                ));
+        GrupoConMiembrosDTO resultado = new GrupoConMiembrosDTO(grupoGuardado, miembros);
+        resultado.setUsuariosNoEncontrados(usuariosNoEncontrados);
+        return resultado;
+    }
+    
+    /**
+     * Inserta las relaciones usuario_grupo con INSERT multi-fila, ignorando las que ya existen
+     */
+    private void insertarMiembros(Long idGrupo, Collection<Long> idsUsuarios) {
+        List<Long> ids = new ArrayList<>(idsUsuarios);
+        for (int desde = 0; desde < ids.size(); desde += FILAS_POR_INSERT) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + FILAS_POR_INSERT, ids.size()));
+            
+            StringBuilder sql = new StringBuilder("INSERT INTO usuario_grupo (id_usuario, id_grupo) VALUES ");
+            List<Object> parametros = new ArrayList<>(lote.size() * 2);
+            for (Long idUsuario : lote) {
+                sql.append(parametros.isEmpty() ? "" : ", ").append("(?, ?)");
+                parametros.add(idUsuario);
+                parametros.add(idGrupo);
             }
+            sql.append(" ON CONFLICT DO NOTHING");
+            jdbcTemplate.update(sql.toString(), parametros.toArray());
         }
-        
-        // Agregar los demás miembros de la tabla usuario_grupo (excluyendo al creador si está duplicado)
-        List<UsuarioGrupoModel> relaciones = usuarioGrupoRepository.findByIdGrupo(idGrupo);
-        List<MiembroGrupoDTO> otrosMiembros = relaciones.stream()
-            .filter(relacion -> !relacion.getIdUsuario().equals(grupoModel.getIdCreador())) // Excluir creador
-            .map(relacion -> {
-                Optional<usuarioModel> usuario = usuarioRepository.findById(relacion.getIdUsuario());
-                if (usuario.isPresent()) {
-                    usuarioModel u = usuario.get();
-                    return new MiembroGrupoDTO(
-                        u.getId(),
-                        u.getNombreUsuario(),
-                        u.getNombre(),
-                        u.getApellido(),
-                        u.getEmail()
-                    );
-                }
-                return null;
-            })
-            .filter(miembro -> miembro != null)
-            .collect(Collectors.toList());
-        
-        miembros.addAll(otrosMiembros);
-        
-        return Optional.of(new GrupoConMiembrosDTO(grupoModel, miembros));
+    }
+    
+    /**
+     * Obtiene un grupo con sus miembros (incluyendo al creador)
+     */
+    public Optional<GrupoConMiembrosDTO> obtenerGrupoConMiembros(Long idGrupo) {
+        return cargarGruposConMiembros(List.of(idGrupo)).stream().findFirst();
     }
     
     /**
@@ -183,27 +234,87 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
     public List<GrupoConMiembrosDTO> obtenerGruposDeUsuario(Long idUsuario) {
         // Obtener grupos donde el usuario es miembro (tabla usuario_grupo)
         List<UsuarioGrupoModel> relaciones = usuarioGrupoRepository.findByIdUsuario(idUsuario);
-        List<Long> idsGruposMiembro = relaciones.stream()
-            .map(UsuarioGrupoModel::getIdGrupo)
-            .collect(Collectors.toList());
         
         // Obtener grupos donde el usuario es creador
         List<GrupoModel> gruposCreador = grupoRepository.findByIdCreador(idUsuario);
-        List<Long> idsGruposCreador = gruposCreador.stream()
-            .map(GrupoModel::getId)
-            .collect(Collectors.toList());
         
         // Combinar ambos conjuntos de IDs sin duplicados
-        Set<Long> idsGruposTotales = new HashSet<>();
-        idsGruposTotales.addAll(idsGruposMiembro);
-        idsGruposTotales.addAll(idsGruposCreador);
+        Set<Long> idsGruposTotales = new LinkedHashSet<>();
+        relaciones.forEach(relacion -> idsGruposTotales.add(relacion.getIdGrupo()));
+        gruposCreador.forEach(grupo -> idsGruposTotales.add(grupo.getId()));
+        
+        return cargarGruposConMiembros(idsGruposTotales);
+    }
+    
+    /**
+     * Carga varios grupos con sus miembros en tres consultas (grupos, relaciones
+     * usuario_grupo y usuarios, todas con IN) en lugar de varias consultas por grupo y miembro.
+     * Cada grupo lleva primero a su creador y después al resto de miembros
+     */
+    private List<GrupoConMiembrosDTO> cargarGruposConMiembros(Collection<Long> idsGrupo) {
+        if (idsGrupo.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, GrupoModel> grupos = grupoRepository.findAllById(idsGrupo).stream()
+            .collect(Collectors.toMap(GrupoModel::getId, Function.identity()));
+        if (grupos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, List<Long>> idsMiembrosPorGrupo = new HashMap<>();
+        for (UsuarioGrupoModel relacion : usuarioGrupoRepository.findByIdGrupoIn(grupos.keySet())) {
+            idsMiembrosPorGrupo.computeIfAbsent(relacion.getIdGrupo(), id -> new ArrayList<>()).add(relacion.getIdUsuario());
+        }
+        
+        // Creadores y miembros de todos los grupos en una sola consulta
+        Set<Long> idsUsuarios = new HashSet<>();
+        grupos.values().forEach(grupo -> {
+            if (grupo.getIdCreador() != null) {
+                idsUsuarios.add(grupo.getIdCreador());
+            }
+        });
+        idsMiembrosPorGrupo.values().forEach(idsUsuarios::addAll);
+        Map<Long, usuarioModel> usuarios = idsUsuarios.isEmpty()
+            ? Map.of()
+            : usuarioRepository.findAllById(idsUsuarios).stream()
+                .collect(Collectors.toMap(usuarioModel::getId, Function.identity()));
         
-        // Obtener los datos completos de cada grupo
-        return idsGruposTotales.stream()
-            .map(this::obtenerGrupoConMiembros)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList());
+        List<GrupoConMiembrosDTO> resultado = new ArrayList<>(grupos.size());
+        for (Long idGrupo : idsGrupo) {
+            GrupoModel grupo = grupos.get(idGrupo);
+            if (grupo == null) {
+                continue;
+            }
+            
+            List<MiembroGrupoDTO> miembros = new ArrayList<>();
+            
+            // Agregar el creador del grupo primero (si existe)
+            if (grupo.getIdCreador() != null && usuarios.containsKey(grupo.getIdCreador())) {
+                miembros.add(aMiembro(usuarios.get(grupo.getIdCreador())));
+            }
+            
+            // Agregar los demás miembros (excluyendo al creador si está duplicado)
+            for (Long idMiembro : idsMiembrosPorGrupo.getOrDefault(idGrupo, List.of())) {
+                usuarioModel u = usuarios.get(idMiembro);
+                if (u != null && !idMiembro.equals(grupo.getIdCreador())) {
+                    miembros.add(aMiembro(u));
+                }
+            }
+            
+            resultado.add(new GrupoConMiembrosDTO(grupo, miembros));
+        }
+        return resultado;
+    }
+    
+    private MiembroGrupoDTO aMiembro(usuarioModel u) {
+        return new MiembroGrupoDTO(
+            u.getId(),
+            u.getNombreUsuario(),
+            u.getNombre(),
+            u.getApellido(),
+            u.getEmail()
+        );
     }
     
     /**
@@ -218,7 +329,9 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
         }
         
         // Buscar el usuario por nombre de usuario
-        Optional<usuarioModel> usuario = usuarioRepository.findByNombreUsuario(nombreUsuario);
+        Optional<usuarioModel> usuario = filtroUsuarios.puedeExistirNombreUsuario(nombreUsuario)
+            ? usuarioRepository.findByNombreUsuario(nombreUsuario)
+            : Optional.empty();
         if (usuario.isEmpty()) {
             throw new RuntimeException("Usuario no encontrado");
         }
@@ -226,8 +339,7 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
         usuarioModel u = usuario.get();
         
         // Verificar que el usuario no esté ya en el grupo
-        Optional<UsuarioGrupoModel> relacionExistente = usuarioGrupoRepository.findByIdGrupoAndIdUsuario(idGrupo, u.getId());
-        if (relacionExistente.isPresent()) {
+        if (usuarioGrupoRepository.findByIdGrupoAndIdUsuario(idGrupo, u.getId()).isPresent()) {
             throw new RuntimeException("El usuario ya es miembro del grupo");
         }
         
@@ -236,6 +348,8 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
         relacion.setIdUsuario(u.getId());
         relacion.setIdGrupo(idGrupo);
         usuarioGrupoRepository.save(relacion);
+        
+        eventoGrupoService.publicar(EventoGrupoService.Tipo.MIEMBRO_AGREGADO, idGrupo, u.getId());
     }
     
     /**
@@ -244,12 +358,16 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
     @Transactional
     public void eliminarMiembroDeGrupo(Long idGrupo, Long idUsuario) {
         usuarioGrupoRepository.deleteByIdGrupoAndIdUsuario(idGrupo, idUsuario);
+        
+        // El miembro eliminado también recibe el evento
+        eventoGrupoService.publicar(EventoGrupoService.Tipo.MIEMBRO_ELIMINADO, idGrupo, idUsuario, Set.of(idUsuario));
     }
     
     /**
      * Elimina un grupo con todas sus relaciones en cascada
      * - Elimina todas las transacciones grupales del grupo
      * - Elimina todas las relaciones usuario-grupo
+     * - Elimina los saldos del grupo
      * - Elimina el grupo
      */
     @Transactional
@@ -257,19 +375,32 @@ public class GrupoService extends GenericService<GrupoModel, Long> {
     public boolean delete(Long id) {
         try {
             // Verificar que el grupo existe
-            if (!grupoRepository.existsById(id)) {
+            Optional<GrupoModel> grupo = grupoRepository.findById(id);
+            if (grupo.isEmpty()) {
                 return false;
             }
             
+            // Miembros a notificar (después de borrar ya no se pueden consultar)
+            Set<Long> miembros = new HashSet<>();
+            usuarioGrupoRepository.findByIdGrupo(id).forEach(relacion -> miembros.add(relacion.getIdUsuario()));
+            if (grupo.get().getIdCreador() != null) {
+                miembros.add(grupo.get().getIdCreador());
+            }
+            
             // 1. Eliminar todas las transacciones grupales del grupo
             transaccionGrupalRepository.deleteByIdGrupo(id);
             
             // 2. Eliminar todas las relaciones usuario-grupo
             usuarioGrupoRepository.deleteByIdGrupo(id);
             
-            // 3. Eliminar el grupo
+            // 3. Eliminar los saldos del grupo
+            saldoGrupoRepository.deleteByIdGrupo(id);
+            
+            // 4. Eliminar el grupo
             grupoRepository.deleteById(id);
             
+            eventoGrupoService.publicar(EventoGrupoService.Tipo.GRUPO_ELIMINADO, id, id, miembros);
+            
             return true;
         } catch (Exception e) {
             return false;
@@ -1,20 +1,36 @@
 package com.lumeo.lumeo.services;
 
 import com.lumeo.lumeo.models.MetaAhorroModel;
+import com.lumeo.lumeo.models.TransaccionModel;
 import com.lumeo.lumeo.repositories.MetaAhorroRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class MetaAhorroService extends GenericService<MetaAhorroModel, Long> {
     
     @Autowired
     private MetaAhorroRepository metaAhorroRepository;
     
+    @Autowired
+    private TransaccionService transaccionService;
+    
+    @Autowired
+    private UsuarioService usuarioService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
     @Override
     protected JpaRepository<MetaAhorroModel, Long> getRepository() {
         return metaAhorroRepository;
@@ -24,7 +40,53 @@ public class MetaAhorroService extends GenericService<MetaAhorroModel, Long> {
         return metaAhorroRepository.findByIdUsuario(idUsuario);
     }
     
+    /**
+     * El uid se resuelve con la caché de UsuarioService y se consulta por id_usuario, sin JOIN con usuario
+     */
     public List<MetaAhorroModel> findByUsuarioUid(UUID uid) {
-        return metaAhorroRepository.findByUsuarioUid(uid);
+        return usuarioService.resolverUid(uid)
+            .map(usuario -> metaAhorroRepository.findByIdUsuario(usuario.id()))
+            .orElse(List.of());
+    }
+    
+    /**
+     * Suma un aporte a la meta y lo registra como gasto, todo en una transacción
+     * El incremento es un único UPDATE condicional: PostgreSQL bloquea la fila mientras lo
+     * aplica, así que los aportes simultáneos no se pisan y nunca se supera el objetivo
+     * @param id ID de la meta
+     * @param cantidad Cantidad a aportar (mayor que 0)
+     * @return La nueva cantidad actual, o vacío si la meta no existe o el aporte excedería el objetivo
+     */
+    @Transactional
+    public Optional<Double> agregarCantidad(Long id, double cantidad) {
+        List<MetaAhorroModel> actualizadas = jdbcTemplate.query(
+            "UPDATE meta_ahorro SET cantidad_actual = COALESCE(cantidad_actual, 0) + ?, fecha_modificacion = now() " +
+            "WHERE id = ? AND COALESCE(cantidad_actual, 0) + ? <= cantidad_objetivo " +
+            "RETURNING cantidad_actual, titulo, id_usuario",
+            (rs, fila) -> {
+                MetaAhorroModel meta = new MetaAhorroModel();
+                meta.setCantidadActual(rs.getDouble("cantidad_actual"));
+                meta.setTitulo(rs.getString("titulo"));
+                meta.setIdUsuario(rs.getObject("id_usuario", Long.class));
+                return meta;
+            },
+            cantidad, id, cantidad
+        );
+        if (actualizadas.isEmpty()) {
+            return Optional.empty();
+        }
+        MetaAhorroModel meta = actualizadas.get(0);
+        
+        // Crear transacción como gasto
+        TransaccionModel transaccion = new TransaccionModel();
+        transaccion.setTitulo("Aporte a " + meta.getTitulo());
+        transaccion.setImporte(cantidad);
+        transaccion.setFechaTransaccion(LocalDate.now());
+        transaccion.setIdUsuario(meta.getIdUsuario());
+        transaccion.setIdTipo(2L); // 2 = Gasto
+        transaccion.setIdEstado(2L); // 2 = Completado
+        transaccionService.create(transaccion);
+        
+        return Optional.of(meta.getCantidadActual());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.dtos.AlertaPresupuestoDTO;
+
+/**
+ * Canal por el que se envían las alertas de presupuesto (log, push, email...)
+ * EvaluadorPresupuestoService llama a todos los beans que implementen esta interfaz;
+ * cada alerta se entrega una sola vez por presupuesto y umbral
+ */
+public interface NotificadorPresupuesto {
+    
+    void notificar(AlertaPresupuestoDTO alerta);
+}
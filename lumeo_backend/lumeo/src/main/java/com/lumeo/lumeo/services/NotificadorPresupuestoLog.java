@@ -0,0 +1,24 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.dtos.AlertaPresupuestoDTO;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Notificador por defecto: deja la alerta en el log
+ */
+@Component
+@Timed(value = "lumeo.servicio", histogram = true)
+public class NotificadorPresupuestoLog implements NotificadorPresupuesto {
+    
+    private static final Logger log = LoggerFactory.getLogger(NotificadorPresupuestoLog.class);
+    
+    @Override
+    public void notificar(AlertaPresupuestoDTO alerta) {
+        log.info("Presupuesto {} del usuario {} ({} {}) al {}%: {} de {}",
+                 alerta.getIdPresupuesto(), alerta.getIdUsuario(), alerta.getMes(), alerta.getAnio(),
+                 alerta.getUmbral(), alerta.getTotalGastos(), alerta.getCantidad());
+    }
+}
@@ -0,0 +1,157 @@
+package com.lumeo.lumeo.services;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Mantiene las particiones mensuales de la tabla transaccion
+ * (ver sql/01_particionar_transaccion.sql)
+ * Si la tabla no está particionada no hace nada
+ */
+@Service
+@Timed(value = "lumeo.servicio", histogram = true)
+public class ParticionTransaccionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionTransaccionService.class);
+
+    private static final DateTimeFormatter FORMATO_SUFIJO = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTICION_DEFECTO = "transaccion_default";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${lumeo.transaccion.particiones.meses-adelante:3}")
+    private int mesesAdelante;
+
+    /**
+     * Crea las particiones futuras al arrancar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        crearParticionesFuturas();
+    }
+
+    /**
+     * Crea las particiones del mes actual y de los próximos N meses si no existen
+     * Cada mes se intenta por separado: un error en uno no impide crear los siguientes
+     */
+    @Scheduled(cron = "${lumeo.transaccion.particiones.cron:0 0 3 * * *}")
+    public void crearParticionesFuturas() {
+        try {
+            if (!esTablaParticionada()) {
+                return;
+            }
+        } catch (Exception e) {
+            log.error("Error al comprobar el particionado de transaccion: {}", e.getMessage());
+            return;
+        }
+
+        YearMonth mesActual = YearMonth.now();
+        for (int i = 0; i <= mesesAdelante; i++) {
+            YearMonth mes = mesActual.plusMonths(i);
+            try {
+                crearParticion(mes);
+            } catch (Exception e) {
+                log.error("Error al crear la partición {} de transaccion: {}", nombreParticion(mes), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indica si la tabla transaccion está particionada
+     */
+    public boolean esTablaParticionada() {
+        Boolean particionada = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt " +
+            "JOIN pg_class c ON c.oid = pt.partrelid " +
+            "WHERE c.relname = 'transaccion' AND c.relnamespace = 'public'::regnamespace)",
+            Boolean.class
+        );
+        return Boolean.TRUE.equals(particionada);
+    }
+
+    /**
+     * Crea la partición de un mes concreto si no existe
+     *
+     * Las transacciones con fecha fuera de las particiones existentes (por ejemplo, una
+     * fecha escrita meses adelante) caen en transaccion_default. PostgreSQL no deja crear
+     * la partición de un mes si la partición por defecto ya tiene filas de ese mes, así
+     * que en ese caso se desvincula la partición por defecto, se crea la del mes, se mueven
+     * las filas y se vuelve a vincular, todo en una transacción
+     * @param mes Mes de la partición
+     */
+    public void crearParticion(YearMonth mes) {
+        String nombre = nombreParticion(mes);
+        if (existeTabla(nombre)) {
+            return;
+        }
+        LocalDate desde = mes.atDay(1);
+        LocalDate hasta = mes.plusMonths(1).atDay(1);
+        String crear = "CREATE TABLE IF NOT EXISTS public." + nombre +
+            " PARTITION OF public.transaccion FOR VALUES FROM ('" + desde + "') TO ('" + hasta + "')";
+
+        if (!existeTabla(PARTICION_DEFECTO) || !hayFilasEnDefecto(desde, hasta)) {
+            jdbcTemplate.execute(crear);
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(estado -> {
+            jdbcTemplate.execute("ALTER TABLE public.transaccion DETACH PARTITION public." + PARTICION_DEFECTO);
+            jdbcTemplate.execute(crear);
+            int movidas = jdbcTemplate.update(
+                "INSERT INTO public." + nombre + " SELECT * FROM public." + PARTICION_DEFECTO +
+                " WHERE fecha_transaccion >= ? AND fecha_transaccion < ?", desde, hasta);
+            jdbcTemplate.update(
+                "DELETE FROM public." + PARTICION_DEFECTO + " WHERE fecha_transaccion >= ? AND fecha_transaccion < ?",
+                desde, hasta);
+            jdbcTemplate.execute("ALTER TABLE public.transaccion ATTACH PARTITION public." + PARTICION_DEFECTO + " DEFAULT");
+            log.info("Partición {} creada con {} transacciones movidas desde {}", nombre, movidas, PARTICION_DEFECTO);
+        });
+    }
+
+    /**
+     * Desvincula la partición de un mes para poder archivarla o eliminarla
+     * sin reescribir la tabla. Los datos de ese mes dejan de ser visibles en transaccion
+     * @param mes Mes de la partición
+     */
+    public void desvincularParticion(YearMonth mes) {
+        jdbcTemplate.execute(
+            "ALTER TABLE public.transaccion DETACH PARTITION public." + nombreParticion(mes)
+        );
+        log.info("Partición {} desvinculada de transaccion", nombreParticion(mes));
+    }
+
+    private boolean existeTabla(String nombre) {
+        Boolean existe = jdbcTemplate.queryForObject(
+            "SELECT to_regclass(?) IS NOT NULL", Boolean.class, "public." + nombre);
+        return Boolean.TRUE.equals(existe);
+    }
+
+    private boolean hayFilasEnDefecto(LocalDate desde, LocalDate hasta) {
+        Boolean hay = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM public." + PARTICION_DEFECTO +
+            " WHERE fecha_transaccion >= ? AND fecha_transaccion < ?)", Boolean.class, desde, hasta);
+        return Boolean.TRUE.equals(hay);
+    }
+
+    private String nombreParticion(YearMonth mes) {
+        return "transaccion_p" + mes.format(FORMATO_SUFIJO);
+    }
+}
@@ -1,20 +1,49 @@
 package com.lumeo.lumeo.services;
 
+import com.lumeo.lumeo.dtos.PresupuestoDTO;
 import com.lumeo.lumeo.models.PresupuestoModel;
 import com.lumeo.lumeo.repositories.PresupuestoRepository;
+import com.lumeo.lumeo.util.PeriodoUtil;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class PresupuestoService extends GenericService<PresupuestoModel, Long> {
     
+    private static final Logger log = LoggerFactory.getLogger(PresupuestoService.class);
+    
     @Autowired
     private PresupuestoRepository presupuestoRepository;
     
+    @Autowired
+    private UsuarioService usuarioService;
+    
+    /**
+     * El usuario ya tiene un presupuesto para ese mes (uk_presupuesto_usuario_periodo)
+     */
+    public static class MesDuplicadoException extends RuntimeException {
+        public MesDuplicadoException() {
+            super("Ya existe un presupuesto para ese mes");
+        }
+    }
+    
     @Override
     protected JpaRepository<PresupuestoModel, Long> getRepository() {
         return presupuestoRepository;
@@ -24,7 +53,134 @@ public class PresupuestoService extends GenericService<PresupuestoModel, Long> {
         return presupuestoRepository.findByIdUsuario(idUsuario);
     }
     
+    /**
+     * El uid se resuelve con la caché de UsuarioService y se consulta por id_usuario, sin JOIN con usuario
+     */
     public List<PresupuestoModel> findByUsuarioUid(UUID uid) {
-        return presupuestoRepository.findByUsuarioUid(uid);
+        return usuarioService.resolverUid(uid)
+            .map(usuario -> presupuestoRepository.findByIdUsuario(usuario.id()))
+            .orElse(List.of());
+    }
+    
+    /**
+     * Crea un presupuesto; solo puede haber uno por usuario y mes
+     * @throws MesDuplicadoException si el usuario ya tiene presupuesto ese mes
+     */
+    @Transactional
+    @Override
+    public PresupuestoModel create(PresupuestoModel presupuesto) {
+        Integer periodo = periodoDe(presupuesto);
+        if (presupuesto.getIdUsuario() != null && periodo != null
+                && presupuestoRepository.existsByIdUsuarioAndPeriodo(presupuesto.getIdUsuario(), periodo)) {
+            throw new MesDuplicadoException();
+        }
+        return guardar(presupuesto);
+    }
+    
+    /**
+     * Actualiza un presupuesto; si cambian la cantidad o el mes se olvidan los umbrales
+     * ya avisados, porque el porcentaje gastado deja de ser el mismo
+     * @throws MesDuplicadoException si se cambia a un mes que ya tiene otro presupuesto
+     */
+    @Transactional
+    @Override
+    public Optional<PresupuestoModel> editById(Long id, PresupuestoModel presupuesto) {
+        Optional<PresupuestoModel> existente = presupuestoRepository.findById(id);
+        if (existente.isEmpty()) {
+            return Optional.empty();
+        }
+        // Se copian antes de guardar: save() vuelca los valores nuevos sobre la entidad cargada
+        Double cantidadAnterior = existente.get().getCantidad();
+        Integer periodoAnterior = existente.get().getPeriodo();
+        
+        Integer periodo = periodoDe(presupuesto);
+        Long idUsuario = presupuesto.getIdUsuario() != null ? presupuesto.getIdUsuario() : existente.get().getIdUsuario();
+        boolean cambiaMes = !Objects.equals(periodoAnterior, periodo);
+        if (cambiaMes && idUsuario != null && periodo != null
+                && presupuestoRepository.existsByIdUsuarioAndPeriodo(idUsuario, periodo)) {
+            throw new MesDuplicadoException();
+        }
+        
+        presupuesto.setId(id);
+        PresupuestoModel guardado = guardar(presupuesto);
+        if (cambiaMes || !Objects.equals(cantidadAnterior, presupuesto.getCantidad())) {
+            presupuestoRepository.reiniciarUmbralNotificado(id);
+            guardado.setUmbralNotificado(null);
+        }
+        return Optional.of(guardado);
+    }
+    
+    /**
+     * Guarda y vuelca en el momento para que la violación de uk_presupuesto_usuario_periodo
+     * (dos altas del mismo mes a la vez) salga aquí como MesDuplicadoException
+     */
+    private PresupuestoModel guardar(PresupuestoModel presupuesto) {
+        try {
+            return presupuestoRepository.saveAndFlush(presupuesto);
+        } catch (DataIntegrityViolationException e) {
+            String causa = e.getMostSpecificCause().getMessage();
+            if (causa != null && causa.contains("uk_presupuesto_usuario_periodo")) {
+                throw new MesDuplicadoException();
+            }
+            throw e;
+        }
+    }
+    
+    // Periodo a partir de mes y anio, o el que venga si no se reconocen (como sincronizarPeriodo)
+    private static Integer periodoDe(PresupuestoModel presupuesto) {
+        Integer periodo = PeriodoUtil.periodo(presupuesto.getMes(), presupuesto.getAnio());
+        return periodo != null ? periodo : presupuesto.getPeriodo();
+    }
+    
+    /**
+     * Presupuestos de un usuario con el total gastado en su mes
+     * El cruce presupuesto-gastos por periodo se hace entero en SQL, en una sola consulta
+     * totalGastos es null si el presupuesto no tiene periodo y su mes o año no se reconocen
+     */
+    @Transactional(readOnly = true)
+    public List<PresupuestoDTO> findConGastosByUsuarioUid(UUID uid) {
+        Optional<UsuarioService.DatosUsuario> usuario = usuarioService.resolverUid(uid);
+        if (usuario.isEmpty()) {
+            return List.of();
+        }
+        List<PresupuestoModel> presupuestos = presupuestoRepository.findByIdUsuario(usuario.get().id());
+        if (presupuestos.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, Double> gastosPorPresupuesto = new HashMap<>();
+        for (Object[] fila : presupuestoRepository.calcularGastosPorPresupuesto(usuario.get().id())) {
+            gastosPorPresupuesto.put(((Number) fila[0]).longValue(), fila[1] != null ? ((Number) fila[1]).doubleValue() : null);
+        }
+        
+        return presupuestos.stream().map(presupuesto -> {
+            PresupuestoDTO dto = new PresupuestoDTO();
+            dto.setId(presupuesto.getId());
+            dto.setMes(presupuesto.getMes());
+            dto.setAnio(presupuesto.getAnio());
+            dto.setPeriodo(presupuesto.getPeriodo());
+            dto.setCantidad(presupuesto.getCantidad());
+            dto.setTotalGastos(gastosPorPresupuesto.getOrDefault(presupuesto.getId(), 0.0));
+            dto.setIdUsuario(presupuesto.getIdUsuario());
+            dto.setFechaCreacion(presupuesto.getFechaCreacion());
+            dto.setFechaModificacion(presupuesto.getFechaModificacion());
+            return dto;
+        }).collect(Collectors.toList());
+    }
+    
+    /**
+     * Rellena al arrancar el periodo de los presupuestos creados antes de existir la columna
+     * Si no queda ninguno pendiente la sentencia no modifica nada
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarPeriodos() {
+        try {
+            int actualizados = presupuestoRepository.rellenarPeriodos();
+            if (actualizados > 0) {
+                log.info("Periodo rellenado en {} presupuestos", actualizados);
+            }
+        } catch (Exception e) {
+            log.error("Error al rellenar el periodo de los presupuestos: {}", e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
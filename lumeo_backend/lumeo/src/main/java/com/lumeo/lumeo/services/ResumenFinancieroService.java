@@ -7,6 +7,9 @@ import com.lumeo.lumeo.models.DivisaModel;
 import com.lumeo.lumeo.repositories.TransaccionRepository;
 import com.lumeo.lumeo.repositories.UsuarioRepository;
 import com.lumeo.lumeo.repositories.DivisaRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,8 +19,11 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class ResumenFinancieroService {
     
+    private static final Logger log = LoggerFactory.getLogger(ResumenFinancieroService.class);
+    
     @Autowired
     private TransaccionRepository transaccionRepository;
     
@@ -36,7 +42,7 @@ public class ResumenFinancieroService {
      * @return ResumenFinancieroDTO con totales calculados
      */
     public ResumenFinancieroDTO calcularResumenFinanciero(Long usuarioId) {
-        System.out.println("🔍 Calculando resumen financiero para usuario: " + usuarioId);
+        log.debug("Calculando resumen financiero para usuario {}", usuarioId);
         
         // Obtener la divisa del usuario
         String codigoDivisa = "EUR"; // Por defecto EUR
@@ -51,13 +57,16 @@ public class ResumenFinancieroService {
                 codigoDivisa = divisa.getIso();
                 simboloDivisa = divisa.getSimbolo() != null ? divisa.getSimbolo() : divisa.getIso();
                 posicionSimbolo = divisa.getPosicionSimbolo() != null ? divisa.getPosicionSimbolo() : "DESPUES";
-                System.out.println("💱 Divisa del usuario: " + codigoDivisa + " (" + simboloDivisa + ") - Posición: " + posicionSimbolo);
+                log.debug("Divisa del usuario: {} ({}) - Posición: {}", codigoDivisa, simboloDivisa, posicionSimbolo);
             }
         }
         
         // Obtener todas las transacciones del usuario (como creador O como destinatario)
         List<TransaccionModel> transacciones = transaccionRepository.findByIdUsuarioOrIdDestinatario(usuarioId, usuarioId);
-        System.out.println("📊 Transacciones encontradas: " + transacciones.size());
+        log.debug("Transacciones encontradas: {}", transacciones.size());
+        
+        // El detalle por transacción solo se escribe a nivel TRACE (se comprueba una vez, fuera del bucle)
+        final boolean trazar = log.isTraceEnabled();
         
         // Inicializar variables para cálculos
         BigDecimal totalIngresos = BigDecimal.ZERO;
@@ -65,8 +74,6 @@ public class ResumenFinancieroService {
         
         // Procesar cada transacción
         for (TransaccionModel transaccion : transacciones) {
-            System.out.println("🔍 Procesando transacción: " + transaccion.getId() + " - " + transaccion.getTitulo());
-            
             // Determinar si el usuario es el creador o el destinatario
             boolean esCreador = transaccion.getIdUsuario().equals(usuarioId);
             boolean esDestinatario = transaccion.getIdDestinatario() != null && transaccion.getIdDestinatario().equals(usuarioId);
@@ -76,11 +83,9 @@ public class ResumenFinancieroService {
             if (esDestinatario) {
                 // Si es destinatario, usar importe_destinatario
                 importeOriginal = transaccion.getImporteDestinatario();
-                System.out.println("👤 Usuario es DESTINATARIO, usando importe_destinatario: " + importeOriginal);
             } else {
                 // Si es creador, usar importe normal
                 importeOriginal = transaccion.getImporte();
-                System.out.println("👤 Usuario es CREADOR, usando importe: " + importeOriginal);
             }
             
             // Convertir desde la divisa original a la divisa actual del usuario
@@ -94,14 +99,19 @@ public class ResumenFinancieroService {
                         isoOriginal, 
                         codigoDivisa
                     );
-                    System.out.println("💱 Convertido de " + isoOriginal + " a " + codigoDivisa + ": " + 
-                                     importeOriginal + " → " + importe);
+                    if (trazar) {
+                        log.trace("Transacción {}: convertido de {} a {}: {} → {}",
+                                  transaccion.getId(), isoOriginal, codigoDivisa, importeOriginal, importe);
+                    }
                 }
             }
             
             Long idTipo = transaccion.getIdTipo();
             
-            System.out.println("💰 Importe: " + importe + ", Tipo: " + idTipo);
+            if (trazar) {
+                log.trace("Transacción {} ({}): importe={}, tipo={}",
+                          transaccion.getId(), esDestinatario ? "destinatario" : "creador", importe, idTipo);
+            }
             
             if (importe != null && idTipo != null) {
                 BigDecimal montoDecimal = BigDecimal.valueOf(Math.abs(importe)); // Usar valor absoluto
@@ -110,35 +120,31 @@ public class ResumenFinancieroService {
                 if (idTipo == 1L) {
                     // Es un ingreso
                     totalIngresos = totalIngresos.add(montoDecimal);
-                    System.out.println("✅ Ingreso agregado: " + montoDecimal + " | Total ingresos: " + totalIngresos);
                 } else if (idTipo == 2L) {
                     // Es un gasto
                     totalGastos = totalGastos.add(montoDecimal);
-                    System.out.println("✅ Gasto agregado: " + montoDecimal + " | Total gastos: " + totalGastos);
                 }
             } else {
-                System.out.println("⚠️ Transacción con valores nulos: importe=" + importe + ", idTipo=" + idTipo);
+                log.warn("Transacción {} con valores nulos: importe={}, idTipo={}", transaccion.getId(), importe, idTipo);
             }
         }
         
         // Calcular saldo total (ingresos - gastos)
         BigDecimal saldoTotal = totalIngresos.subtract(totalGastos);
         
-        System.out.println("📊 RESULTADO FINAL:");
-        System.out.println("   Total Ingresos: " + totalIngresos);
-        System.out.println("   Total Gastos: " + totalGastos);
-        System.out.println("   Saldo Total: " + saldoTotal);
+        log.debug("Resultado total usuario {}: ingresos={}, gastos={}, saldo={}",
+                  usuarioId, totalIngresos, totalGastos, saldoTotal);
         
         // Calcular datos del mes actual
         LocalDate hoy = LocalDate.now();
         LocalDate inicioMes = hoy.withDayOfMonth(1);
         LocalDate finMes = hoy.withDayOfMonth(hoy.lengthOfMonth());
         
-        System.out.println("📅 Calculando datos mensuales de " + inicioMes + " a " + finMes);
+        log.debug("Calculando datos mensuales de {} a {}", inicioMes, finMes);
         
         // Obtener transacciones del mes actual (como creador O destinatario)
         List<TransaccionModel> transaccionesMes = transaccionRepository.findByIdUsuarioOrIdDestinatarioAndFechaBetween(usuarioId, usuarioId, inicioMes, finMes);
-        System.out.println("📊 Transacciones del mes encontradas: " + transaccionesMes.size());
+        log.debug("Transacciones del mes encontradas: {}", transaccionesMes.size());
         
         BigDecimal ingresosMensuales = BigDecimal.ZERO;
         BigDecimal gastosMensuales = BigDecimal.ZERO;
@@ -189,10 +195,8 @@ public class ResumenFinancieroService {
         
         BigDecimal ahorroMensual = ingresosMensuales.subtract(gastosMensuales);
         
-        System.out.println("📊 RESULTADO MENSUAL:");
-        System.out.println("   Ingresos Mensuales: " + ingresosMensuales);
-        System.out.println("   Gastos Mensuales: " + gastosMensuales);
-        System.out.println("   Ahorro Mensual: " + ahorroMensual);
+        log.debug("Resultado mensual usuario {}: ingresos={}, gastos={}, ahorro={}",
+                  usuarioId, ingresosMensuales, gastosMensuales, ahorroMensual);
         
         return new ResumenFinancieroDTO(totalIngresos, totalGastos, saldoTotal, codigoDivisa, simboloDivisa,
                                        posicionSimbolo, ingresosMensuales, gastosMensuales, ahorroMensual);
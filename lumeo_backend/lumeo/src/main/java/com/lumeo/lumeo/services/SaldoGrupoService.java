@@ -0,0 +1,279 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.dtos.PagoLiquidacionDTO;
+import com.lumeo.lumeo.dtos.SaldoGrupoDTO;
+import com.lumeo.lumeo.models.SaldoGrupoModel;
+import com.lumeo.lumeo.models.TransaccionGrupalModel;
+import com.lumeo.lumeo.models.TransaccionModel;
+import com.lumeo.lumeo.models.usuarioModel;
+import com.lumeo.lumeo.repositories.SaldoGrupoRepository;
+import com.lumeo.lumeo.repositories.TransaccionGrupalRepository;
+import com.lumeo.lumeo.repositories.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Saldos netos de los miembros de cada grupo ("quién debe a quién")
+ *
+ * Cada transacción individual de una transacción grupal con pagador es una deuda mientras
+ * no esté pagada (idEstado 3): en un gasto (idTipo 2) el usuario debe su parte al pagador,
+ * y en un ingreso (idTipo 1) el pagador, que recibió el total, debe su parte al usuario.
+ * Otros tipos no generan deudas. En lugar de recorrer todo
+ * el historial del grupo, la tabla saldo_grupo se actualiza al crear, editar o eliminar
+ * esas transacciones, y leer los saldos de un grupo cuesta O(miembros)
+ *
+ * Los importes se acumulan tal como se registraron (divisa de la transacción grupal)
+ */
+@Service
+@Timed(value = "lumeo.servicio", histogram = true)
+public class SaldoGrupoService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SaldoGrupoService.class);
+    
+    private static final long ESTADO_PAGADA = 3L;
+    
+    private static final long TIPO_INGRESO = 1L;
+    private static final long TIPO_GASTO = 2L;
+    
+    // Por debajo de medio céntimo se considera saldado (errores de redondeo de Double)
+    private static final double TOLERANCIA = 0.005;
+    
+    @Autowired
+    private SaldoGrupoRepository saldoGrupoRepository;
+    
+    @Autowired
+    private TransaccionGrupalRepository transaccionGrupalRepository;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Deuda pendiente que aporta una transacción individual al saldo del grupo:
+     * idDeudor debe importe a idPagador (en un ingreso el pagador del grupo es el deudor)
+     * Es una copia: sigue siendo válida aunque la entidad se modifique después
+     */
+    public record Deuda(Long idGrupo, Long idPagador, Long idDeudor, double importe) {
+        
+        /**
+         * La misma deuda con el importe cambiado de signo: al registrarla deshace la original
+         */
+        public Deuda anulada() {
+            return new Deuda(idGrupo, idPagador, idDeudor, -importe);
+        }
+    }
+    
+    /**
+     * Importe que aún le queda por cobrar o pagar a un miembro durante la liquidación
+     */
+    private static final class Pendiente {
+        private final Long idUsuario;
+        private double importe;
+        
+        Pendiente(Long idUsuario, double importe) {
+            this.idUsuario = idUsuario;
+            this.importe = importe;
+        }
+    }
+    
+    /**
+     * Calcula la deuda pendiente de una transacción individual, o null si no aporta nada
+     * (no pertenece a una transacción grupal con pagador, no es ingreso ni gasto,
+     * es la parte del propio pagador o ya está pagada)
+     */
+    public Deuda deudaDe(TransaccionModel transaccion) {
+        if (transaccion == null || transaccion.getIdTransaccionGrupal() == null) {
+            return null;
+        }
+        return transaccionGrupalRepository.findById(transaccion.getIdTransaccionGrupal())
+            .map(tg -> deudaDe(tg, transaccion))
+            .orElse(null);
+    }
+    
+    /**
+     * Igual que deudaDe(TransaccionModel) cuando ya se tiene la transacción grupal cargada
+     */
+    public Deuda deudaDe(TransaccionGrupalModel transaccionGrupal, TransaccionModel transaccion) {
+        if (transaccionGrupal.getIdPagador() == null
+                || transaccion.getIdUsuario() == null
+                || transaccion.getIdUsuario().equals(transaccionGrupal.getIdPagador())
+                || Long.valueOf(ESTADO_PAGADA).equals(transaccion.getIdEstado())
+                || transaccion.getImporte() == null
+                || transaccion.getImporte() == 0) {
+            return null;
+        }
+        Long idTipo = transaccionGrupal.getIdTipo();
+        if (Long.valueOf(TIPO_GASTO).equals(idTipo)) {
+            return new Deuda(transaccionGrupal.getIdGrupo(), transaccionGrupal.getIdPagador(),
+                             transaccion.getIdUsuario(), transaccion.getImporte());
+        }
+        if (Long.valueOf(TIPO_INGRESO).equals(idTipo)) {
+            return new Deuda(transaccionGrupal.getIdGrupo(), transaccion.getIdUsuario(),
+                             transaccionGrupal.getIdPagador(), transaccion.getImporte());
+        }
+        return null;
+    }
+    
+    /**
+     * Sustituye en los saldos la deuda anterior de una transacción por la nueva
+     * Sirve para altas (anterior null), bajas (nueva null), cambios de importe y
+     * cambios de estado (al marcarla como pagada la deuda nueva es null y se salda)
+     */
+    @Transactional
+    public void actualizarDeuda(Deuda anterior, Deuda nueva) {
+        if (anterior != null && anterior.equals(nueva)) {
+            return;
+        }
+        if (anterior != null) {
+            aplicar(anterior, -anterior.importe());
+        }
+        if (nueva != null) {
+            aplicar(nueva, nueva.importe());
+        }
+    }
+    
+    /**
+     * Suma varias deudas nuevas a los saldos con una sola sentencia
+     * (por ejemplo todas las partes de una transacción grupal recién creada, o las
+     * anuladas de una que se elimina)
+     * Los cambios se agregan antes por miembro: un INSERT ... ON CONFLICT no puede tocar dos veces la misma fila
+     */
+    @Transactional
+    public void registrarDeudas(Collection<Deuda> deudas) {
+        Map<SaldoGrupoModel.SaldoGrupoId, Double> cambios = new LinkedHashMap<>();
+        for (Deuda deuda : deudas) {
+            if (deuda != null) {
+                cambios.merge(new SaldoGrupoModel.SaldoGrupoId(deuda.idGrupo(), deuda.idPagador()), deuda.importe(), Double::sum);
+                cambios.merge(new SaldoGrupoModel.SaldoGrupoId(deuda.idGrupo(), deuda.idDeudor()), -deuda.importe(), Double::sum);
+            }
+        }
+        if (cambios.isEmpty()) {
+            return;
+        }
+        
+        StringBuilder sql = new StringBuilder("INSERT INTO saldo_grupo (id_grupo, id_usuario, saldo) VALUES ");
+        List<Object> parametros = new ArrayList<>(cambios.size() * 3);
+        for (Map.Entry<SaldoGrupoModel.SaldoGrupoId, Double> cambio : cambios.entrySet()) {
+            sql.append(parametros.isEmpty() ? "" : ", ").append("(?, ?, ?)");
+            parametros.add(cambio.getKey().getIdGrupo());
+            parametros.add(cambio.getKey().getIdUsuario());
+            parametros.add(cambio.getValue());
+        }
+        sql.append(" ON CONFLICT (id_grupo, id_usuario) DO UPDATE SET saldo = saldo_grupo.saldo + EXCLUDED.saldo");
+        jdbcTemplate.update(sql.toString(), parametros.toArray());
+        log.trace("Saldos actualizados para {} miembros", cambios.size());
+    }
+    
+    private void aplicar(Deuda deuda, double importe) {
+        saldoGrupoRepository.sumarSaldo(deuda.idGrupo(), deuda.idPagador(), importe);
+        saldoGrupoRepository.sumarSaldo(deuda.idGrupo(), deuda.idDeudor(), -importe);
+        log.trace("Saldo del grupo {}: {} -> {} ({})", deuda.idGrupo(), deuda.idDeudor(), deuda.idPagador(), importe);
+    }
+    
+    /**
+     * Saldos de los miembros de un grupo que tienen deudas o créditos, de mayor a menor
+     */
+    @Transactional(readOnly = true)
+    public List<SaldoGrupoDTO> obtenerSaldos(Long idGrupo) {
+        List<SaldoGrupoModel> saldos = saldoGrupoRepository.findByIdGrupo(idGrupo).stream()
+            .filter(s -> Math.abs(s.getSaldo()) >= TOLERANCIA)
+            .sorted(Comparator.comparingDouble(SaldoGrupoModel::getSaldo).reversed())
+            .collect(Collectors.toList());
+        Map<Long, usuarioModel> usuarios = cargarUsuarios(saldos.stream().map(SaldoGrupoModel::getIdUsuario).collect(Collectors.toList()));
+        
+        return saldos.stream()
+            .map(s -> {
+                usuarioModel u = usuarios.get(s.getIdUsuario());
+                return new SaldoGrupoDTO(
+                    s.getIdUsuario(),
+                    u != null ? u.getNombreUsuario() : null,
+                    u != null ? u.getNombre() : null,
+                    u != null ? u.getApellido() : null,
+                    redondear(s.getSaldo())
+                );
+            })
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Propone los pagos para dejar a cero todos los saldos del grupo (flujo de caja mínimo)
+     * En cada paso el mayor deudor paga al mayor acreedor lo máximo posible, así
+     * con n miembros con saldo salen como mucho n-1 pagos
+     */
+    @Transactional(readOnly = true)
+    public List<PagoLiquidacionDTO> calcularLiquidacion(Long idGrupo) {
+        List<SaldoGrupoModel> saldos = saldoGrupoRepository.findByIdGrupo(idGrupo);
+        
+        PriorityQueue<Pendiente> acreedores = new PriorityQueue<>(Comparator.comparingDouble((Pendiente p) -> p.importe).reversed());
+        PriorityQueue<Pendiente> deudores = new PriorityQueue<>(Comparator.comparingDouble((Pendiente p) -> p.importe).reversed());
+        for (SaldoGrupoModel s : saldos) {
+            if (s.getSaldo() >= TOLERANCIA) {
+                acreedores.add(new Pendiente(s.getIdUsuario(), s.getSaldo()));
+            } else if (s.getSaldo() <= -TOLERANCIA) {
+                deudores.add(new Pendiente(s.getIdUsuario(), -s.getSaldo()));
+            }
+        }
+        
+        Map<Long, usuarioModel> usuarios = cargarUsuarios(saldos.stream().map(SaldoGrupoModel::getIdUsuario).collect(Collectors.toList()));
+        List<PagoLiquidacionDTO> resultado = new ArrayList<>();
+        while (!acreedores.isEmpty() && !deudores.isEmpty()) {
+            Pendiente acreedor = acreedores.poll();
+            Pendiente deudor = deudores.poll();
+            double importe = Math.min(acreedor.importe, deudor.importe);
+            
+            resultado.add(new PagoLiquidacionDTO(
+                deudor.idUsuario,
+                nombreUsuario(usuarios, deudor.idUsuario),
+                acreedor.idUsuario,
+                nombreUsuario(usuarios, acreedor.idUsuario),
+                redondear(importe)
+            ));
+            
+            acreedor.importe -= importe;
+            deudor.importe -= importe;
+            if (acreedor.importe >= TOLERANCIA) {
+                acreedores.add(acreedor);
+            }
+            if (deudor.importe >= TOLERANCIA) {
+                deudores.add(deudor);
+            }
+        }
+        
+        log.debug("Liquidación del grupo {}: {} pagos para {} saldos", idGrupo, resultado.size(), saldos.size());
+        return resultado;
+    }
+    
+    private Map<Long, usuarioModel> cargarUsuarios(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return usuarioRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(usuarioModel::getId, Function.identity()));
+    }
+    
+    private static String nombreUsuario(Map<Long, usuarioModel> usuarios, Long idUsuario) {
+        usuarioModel u = usuarios.get(idUsuario);
+        return u != null ? u.getNombreUsuario() : null;
+    }
+    
+    private static double redondear(double importe) {
+        return Math.round(importe * 100.0) / 100.0;
+    }
+}
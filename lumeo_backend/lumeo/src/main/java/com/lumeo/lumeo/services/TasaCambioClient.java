@@ -0,0 +1,87 @@
+package com.lumeo.lumeo.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cliente asíncrono de la API de tasas de cambio
+ * Usa un único HttpClient (HTTP/2, conexiones reutilizadas, respuestas gzip)
+ * con timeouts de conexión y de petición para no bloquear nunca indefinidamente
+ */
+@Service
+@Timed(value = "lumeo.servicio", histogram = true)
+public class TasaCambioClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String apiUrl;
+    private final Duration timeoutPeticion;
+
+    public TasaCambioClient(@Value("${lumeo.divisas.api.url:https://api.exchangerate-api.com/v4/latest/}") String apiUrl,
+                            @Value("${lumeo.divisas.api.connect-timeout-ms:2000}") long connectTimeoutMs,
+                            @Value("${lumeo.divisas.api.timeout-ms:5000}") long timeoutMs) {
+        this.apiUrl = apiUrl;
+        this.timeoutPeticion = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    /**
+     * Obtiene las tasas de cambio desde una divisa origen
+     * @param isoOrigen Código ISO de la divisa origen
+     * @return Futuro con el nodo "rates" de la respuesta (ISO destino → tasa)
+     */
+    public CompletableFuture<JsonNode> obtenerTasas(String isoOrigen) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + isoOrigen))
+            .timeout(timeoutPeticion)
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip")
+            .GET()
+            .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(this::leerTasas)
+            .orTimeout(timeoutPeticion.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private JsonNode leerTasas(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("La API de divisas respondió con estado " + response.statusCode());
+        }
+
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+            .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+            .orElse(false);
+
+        try (InputStream body = gzip
+                ? new GZIPInputStream(new ByteArrayInputStream(response.body()))
+                : new ByteArrayInputStream(response.body())) {
+            JsonNode rates = objectMapper.readTree(body).get("rates");
+            if (rates == null) {
+                throw new IllegalStateException("La respuesta de la API de divisas no contiene tasas");
+            }
+            return rates;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.lumeo.lumeo.services;
 
 import com.lumeo.lumeo.models.TipoTransaccionModel;
 import com.lumeo.lumeo.repositories.TipoTransaccionRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class TipoTransaccionService extends GenericService<TipoTransaccionModel, Long> {
     
     @Autowired
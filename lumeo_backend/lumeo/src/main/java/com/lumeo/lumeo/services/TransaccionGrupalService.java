@@ -5,18 +5,44 @@ import com.lumeo.lumeo.dtos.TransaccionDTO;
 import com.lumeo.lumeo.dtos.TransaccionGrupalDTO;
 import com.lumeo.lumeo.models.*;
 import com.lumeo.lumeo.repositories.*;
+import com.lumeo.lumeo.util.LimitadorLog;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class TransaccionGrupalService extends GenericService<TransaccionGrupalModel, Long> {
     
+    private static final Logger log = LoggerFactory.getLogger(TransaccionGrupalService.class);
+    
+    // Los fallos al cargar relaciones se repiten por cada fila: como mucho 5 avisos por minuto
+    private static final LimitadorLog LIMITE_ERRORES_RELACIONES = LimitadorLog.maximo(5, Duration.ofMinutes(1));
+    
+    // Filas por INSERT multi-fila (12 parámetros por fila, lejos del límite de 65535 de PostgreSQL)
+    private static final int FILAS_POR_INSERT = 500;
+    
     @Autowired
     private TransaccionGrupalRepository transaccionGrupalRepository;
     
@@ -32,6 +58,9 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
     @Autowired
     private GrupoRepository grupoRepository;
     
+    @Autowired
+    private UsuarioGrupoRepository usuarioGrupoRepository;
+    
     @Autowired
     private CategoriaRepository categoriaRepository;
     
@@ -41,6 +70,27 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
     @Autowired
     private ConversionDivisaService conversionDivisaService;
     
+    @Autowired
+    private SaldoGrupoService saldoGrupoService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EventoGrupoService eventoGrupoService;
+    
+    @Autowired
+    private EvaluadorPresupuestoService evaluadorPresupuestoService;
+    
+    /**
+     * El pagador indicado no es miembro ni creador del grupo
+     */
+    public static class PagadorNoMiembroException extends RuntimeException {
+        public PagadorNoMiembroException() {
+            super("El pagador no es miembro del grupo");
+        }
+    }
+    
     @Override
     protected JpaRepository<TransaccionGrupalModel, Long> getRepository() {
         return transaccionGrupalRepository;
@@ -48,23 +98,38 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
     
     /**
      * Crea una transacción grupal junto con las transacciones individuales asociadas
+     * Las divisas de los participantes se resuelven en una sola consulta y las transacciones
+     * individuales se insertan con un INSERT multi-fila, así el número de idas y vueltas a la
+     * base de datos no crece con el tamaño del grupo
      * @param dto DTO con los datos de la transacción grupal
      * @return La transacción grupal creada con las transacciones individuales
+     * @throws PagadorNoMiembroException si idPagador no es miembro ni creador del grupo
      */
     @Transactional
     public TransaccionGrupalModel crearTransaccionGrupal(CrearTransaccionGrupalDTO dto) {
-        System.out.println("📝 Creando transacción grupal: " + dto.getTitulo());
-        
-        // 1. Obtener la divisa del grupo (usar la del primer usuario)
-        Long idDivisaOriginal = null;
-        if (dto.getTransaccionesIndividuales() != null && !dto.getTransaccionesIndividuales().isEmpty()) {
-            Long primerUsuarioId = dto.getTransaccionesIndividuales().get(0).getIdUsuario();
-            Optional<usuarioModel> usuarioOpt = usuarioRepository.findById(primerUsuarioId);
-            if (usuarioOpt.isPresent()) {
-                idDivisaOriginal = usuarioOpt.get().getIdDivisa();
-            }
+        log.debug("Creando transacción grupal: {}", dto.getTitulo());
+        
+        // El pagador recibe las deudas del grupo: tiene que pertenecer a él
+        if (dto.getIdPagador() != null && !esParticipante(dto.getIdGrupo(), dto.getIdPagador())) {
+            throw new PagadorNoMiembroException();
+        }
+        
+        List<CrearTransaccionGrupalDTO.TransaccionIndividualDTO> individuales =
+            dto.getTransaccionesIndividuales() != null ? dto.getTransaccionesIndividuales() : List.of();
+        
+        // 1. Obtener la divisa de todos los participantes en una sola consulta
+        Map<Long, Long> divisaPorUsuario = new HashMap<>();
+        Set<Long> idsUsuarios = individuales.stream()
+            .map(CrearTransaccionGrupalDTO.TransaccionIndividualDTO::getIdUsuario)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (!idsUsuarios.isEmpty()) {
+            usuarioRepository.findAllById(idsUsuarios).forEach(u -> divisaPorUsuario.put(u.getId(), u.getIdDivisa()));
         }
         
+        // La divisa del grupo es la del primer usuario
+        Long idDivisaOriginal = individuales.isEmpty() ? null : divisaPorUsuario.get(individuales.get(0).getIdUsuario());
+        
         // 2. Crear la transacción grupal
         TransaccionGrupalModel transaccionGrupal = new TransaccionGrupalModel();
         transaccionGrupal.setTitulo(dto.getTitulo());
@@ -76,14 +141,16 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         transaccionGrupal.setIdTipo(dto.getIdTipo());
         transaccionGrupal.setIdAdjunto(dto.getIdAdjunto());
         transaccionGrupal.setIdDivisaOriginal(idDivisaOriginal);
+        transaccionGrupal.setIdPagador(dto.getIdPagador());
         
         // Guardar la transacción grupal
         transaccionGrupal = transaccionGrupalRepository.save(transaccionGrupal);
-        System.out.println("✅ Transacción grupal creada con ID: " + transaccionGrupal.getId());
+        log.debug("Transacción grupal creada con ID {}", transaccionGrupal.getId());
         
         // 3. Crear las transacciones individuales vinculadas
         Long transaccionGrupalId = transaccionGrupal.getId();
-        for (CrearTransaccionGrupalDTO.TransaccionIndividualDTO transIndDto : dto.getTransaccionesIndividuales()) {
+        List<TransaccionModel> transaccionesIndividuales = new ArrayList<>(individuales.size());
+        for (CrearTransaccionGrupalDTO.TransaccionIndividualDTO transIndDto : individuales) {
             TransaccionModel transaccionIndividual = new TransaccionModel();
             transaccionIndividual.setTitulo(dto.getTitulo());
             transaccionIndividual.setImporte(transIndDto.getImporte());
@@ -95,21 +162,78 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
             transaccionIndividual.setIdTipo(dto.getIdTipo());
             transaccionIndividual.setIdEstado(1L); // Estado pendiente
             transaccionIndividual.setIdAdjunto(dto.getIdAdjunto());
-            
-            // Establecer la divisa original del usuario
-            Optional<usuarioModel> usuarioOpt = usuarioRepository.findById(transIndDto.getIdUsuario());
-            if (usuarioOpt.isPresent()) {
-                transaccionIndividual.setIdDivisaOriginal(usuarioOpt.get().getIdDivisa());
-            }
-            
-            transaccionRepository.save(transaccionIndividual);
-            System.out.println("  ✓ Transacción individual creada para usuario: " + transIndDto.getIdUsuario());
+            transaccionIndividual.setIdDivisaOriginal(divisaPorUsuario.get(transIndDto.getIdUsuario())); // Divisa original del usuario
+            transaccionesIndividuales.add(transaccionIndividual);
         }
+        insertarTransacciones(transaccionesIndividuales);
         
-        System.out.println("🎉 Transacción grupal completada con " + dto.getTransaccionesIndividuales().size() + " transacciones individuales");
+        // 4. Lo que cada miembro debe al pagador pasa a los saldos del grupo
+        final TransaccionGrupalModel grupal = transaccionGrupal;
+        saldoGrupoService.registrarDeudas(transaccionesIndividuales.stream()
+            .map(t -> saldoGrupoService.deudaDe(grupal, t))
+            .collect(Collectors.toList()));
+        
+        // 5. Gasto de cada participante para las alertas de presupuesto
+        evaluadorPresupuestoService.publicarCambio(List.of(), transaccionesIndividuales.stream()
+            .flatMap(t -> evaluadorPresupuestoService.aportacionesDe(t).stream())
+            .collect(Collectors.toList()));
+        
+        transaccionGrupal.setTransaccionesIndividuales(transaccionesIndividuales);
+        eventoGrupoService.publicar(EventoGrupoService.Tipo.TRANSACCION_CREADA, transaccionGrupal.getIdGrupo(), transaccionGrupal.getId());
+        log.info("Transacción grupal {} creada con {} transacciones individuales", transaccionGrupal.getId(), transaccionesIndividuales.size());
         return transaccionGrupal;
     }
     
+    private boolean esParticipante(Long idGrupo, Long idUsuario) {
+        if (idGrupo == null) {
+            return false;
+        }
+        return usuarioGrupoRepository.findByIdGrupoAndIdUsuario(idGrupo, idUsuario).isPresent()
+            || grupoRepository.findById(idGrupo).map(g -> idUsuario.equals(g.getIdCreador())).orElse(false);
+    }
+    
+    /**
+     * Inserta transacciones nuevas con INSERT ... VALUES (...), (...)
+     * Con claves IDENTITY Hibernate no puede agrupar los INSERT (y batch_size=0 por el pooler
+     * de Supabase), así que se escriben con JdbcTemplate: una sentencia por cada FILAS_POR_INSERT filas.
+     * PostgreSQL no garantiza que RETURNING devuelva las filas en el orden de VALUES, así que los ids
+     * se reservan antes de la secuencia de transaccion.id (una consulta por lote) y se insertan
+     * explícitamente: cada modelo sabe su id sin depender del orden
+     */
+    private void insertarTransacciones(List<TransaccionModel> transacciones) {
+        for (int desde = 0; desde < transacciones.size(); desde += FILAS_POR_INSERT) {
+            List<TransaccionModel> lote = transacciones.subList(desde, Math.min(desde + FILAS_POR_INSERT, transacciones.size()));
+            
+            List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('transaccion', 'id')) FROM generate_series(1, ?)",
+                Long.class, lote.size());
+            
+            // OVERRIDING SYSTEM VALUE por si id es GENERATED ALWAYS AS IDENTITY
+            StringBuilder sql = new StringBuilder(
+                "INSERT INTO transaccion (id, titulo, importe, id_divisa_original, fecha_transaccion, nota, id_usuario, " +
+                "id_categoria, id_transaccion_grupal, id_tipo, id_estado, id_adjunto) OVERRIDING SYSTEM VALUE VALUES ");
+            List<SqlParameterValue> parametros = new ArrayList<>(lote.size() * 12);
+            for (int i = 0; i < lote.size(); i++) {
+                TransaccionModel t = lote.get(i);
+                t.setId(ids.get(i));
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getId()));
+                parametros.add(new SqlParameterValue(Types.VARCHAR, t.getTitulo()));
+                parametros.add(new SqlParameterValue(Types.DOUBLE, t.getImporte()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdDivisaOriginal()));
+                parametros.add(new SqlParameterValue(Types.DATE, t.getFechaTransaccion()));
+                parametros.add(new SqlParameterValue(Types.VARCHAR, t.getNota()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdUsuario()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdCategoria()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdTransaccionGrupal()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdTipo()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdEstado()));
+                parametros.add(new SqlParameterValue(Types.BIGINT, t.getIdAdjunto()));
+            }
+            jdbcTemplate.update(sql.toString(), parametros.toArray());
+        }
+    }
+    
     /**
      * Obtiene todas las transacciones grupales de un grupo con importes convertidos
      * @param idGrupo ID del grupo
@@ -117,7 +241,7 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
      * @return Lista de transacciones grupales como DTO
      */
     public List<TransaccionGrupalDTO> findByIdGrupoConvertidas(Long idGrupo, Long idUsuario) {
-        System.out.println("🔍 Obteniendo transacciones grupales para grupo: " + idGrupo);
+        log.debug("Obteniendo transacciones grupales para grupo {}", idGrupo);
         
         // Obtener la divisa del usuario
         String codigoDivisaUsuario = "EUR";
@@ -133,22 +257,87 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         
         List<TransaccionGrupalModel> transaccionesGrupales = transaccionGrupalRepository.findByIdGrupo(idGrupo);
         
+        // Resolver en paralelo las tasas de todas las divisas origen antes de convertir
+        CompletableFuture<Void> tasas = conversionDivisaService.precargarTasasDivisas(
+            transaccionesGrupales.stream().map(TransaccionGrupalModel::getIdDivisaOriginal).collect(Collectors.toSet()),
+            codigoDivisaUsuario
+        );
+        
+        // Mientras tanto, cargar de golpe los grupos, categorías, tipos y divisas referenciados
+        Diccionarios diccionarios = cargarDiccionarios(transaccionesGrupales, List.of());
+        tasas.join();
+        
         // Convertir a DTO
         final String divisaDestino = codigoDivisaUsuario;
         final String posicion = posicionSimbolo;
         
         List<TransaccionGrupalDTO> dtos = transaccionesGrupales.stream()
-            .map(tg -> convertToDTO(tg, divisaDestino, posicion))
+            .map(tg -> convertToDTO(tg, divisaDestino, posicion, diccionarios))
             .collect(Collectors.toList());
         
-        System.out.println("✅ Transacciones grupales obtenidas: " + dtos.size());
+        log.debug("Transacciones grupales obtenidas: {}", dtos.size());
         return dtos;
     }
     
+    /**
+     * Entidades relacionadas que necesita el mapeo a DTO, indexadas por ID
+     * Se cargan una vez por petición con findAllById sobre los IDs distintos, en lugar de
+     * un findById por fila y relación
+     */
+    private static final class Diccionarios {
+        private final Map<Long, GrupoModel> grupos;
+        private final Map<Long, CategoriaModel> categorias;
+        private final Map<Long, TipoTransaccionModel> tipos;
+        private final Map<Long, DivisaModel> divisas;
+        private final Map<Long, usuarioModel> usuarios;
+        
+        private Diccionarios(Map<Long, GrupoModel> grupos, Map<Long, CategoriaModel> categorias,
+                             Map<Long, TipoTransaccionModel> tipos, Map<Long, DivisaModel> divisas,
+                             Map<Long, usuarioModel> usuarios) {
+            this.grupos = grupos;
+            this.categorias = categorias;
+            this.tipos = tipos;
+            this.divisas = divisas;
+            this.usuarios = usuarios;
+        }
+    }
+    
+    /**
+     * Carga en bloque las relaciones de las transacciones grupales y de sus transacciones individuales
+     * Como mucho cinco consultas, sea cual sea el número de filas
+     */
+    private Diccionarios cargarDiccionarios(List<TransaccionGrupalModel> grupales, List<TransaccionModel> individuales) {
+        Set<Long> idsDivisa = new HashSet<>();
+        grupales.forEach(tg -> idsDivisa.add(tg.getIdDivisaOriginal()));
+        individuales.forEach(t -> idsDivisa.add(t.getIdDivisaOriginal()));
+        
+        return new Diccionarios(
+            porId(grupoRepository, ids(grupales, TransaccionGrupalModel::getIdGrupo), GrupoModel::getId),
+            porId(categoriaRepository, ids(grupales, TransaccionGrupalModel::getIdCategoria), CategoriaModel::getId),
+            porId(tipoTransaccionRepository, ids(grupales, TransaccionGrupalModel::getIdTipo), TipoTransaccionModel::getId),
+            porId(divisaRepository, idsDivisa, DivisaModel::getId),
+            porId(usuarioRepository, ids(individuales, TransaccionModel::getIdUsuario), usuarioModel::getId)
+        );
+    }
+    
+    private static <T> Set<Long> ids(List<T> filas, Function<T, Long> id) {
+        return filas.stream().map(id).collect(Collectors.toCollection(HashSet::new));
+    }
+    
+    private static <E> Map<Long, E> porId(JpaRepository<E, Long> repositorio, Set<Long> ids, Function<E, Long> id) {
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return repositorio.findAllById(ids).stream()
+            .collect(Collectors.toMap(id, Function.identity(), (a, b) -> a));
+    }
+    
     /**
      * Convierte una TransaccionGrupalModel a DTO con importes convertidos
      */
-    private TransaccionGrupalDTO convertToDTO(TransaccionGrupalModel model, String divisaDestino, String posicionSimbolo) {
+    private TransaccionGrupalDTO convertToDTO(TransaccionGrupalModel model, String divisaDestino, String posicionSimbolo,
+                                              Diccionarios diccionarios) {
         TransaccionGrupalDTO dto = new TransaccionGrupalDTO();
         dto.setId(model.getId());
         dto.setTitulo(model.getTitulo());
@@ -166,9 +355,9 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         dto.setImporteOriginal(importeOriginal);
         
         if (model.getIdDivisaOriginal() != null) {
-            Optional<DivisaModel> divisaOpt = divisaRepository.findById(model.getIdDivisaOriginal());
-            if (divisaOpt.isPresent()) {
-                String divisaOrigen = divisaOpt.get().getIso();
+            DivisaModel divisa = diccionarios.divisas.get(model.getIdDivisaOriginal());
+            if (divisa != null) {
+                String divisaOrigen = divisa.getIso();
                 dto.setCodigoDivisaOriginal(divisaOrigen);
                 
                 double importeConvertido = conversionDivisaService.convertirMonto(
@@ -183,16 +372,16 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         }
         
         // Agregar nombres de relaciones
-        if (model.getIdGrupo() != null) {
-            grupoRepository.findById(model.getIdGrupo()).ifPresent(g -> dto.setNombreGrupo(g.getNombre()));
+        if (model.getIdGrupo() != null && diccionarios.grupos.containsKey(model.getIdGrupo())) {
+            dto.setNombreGrupo(diccionarios.grupos.get(model.getIdGrupo()).getNombre());
         }
         
-        if (model.getIdCategoria() != null) {
-            categoriaRepository.findById(model.getIdCategoria()).ifPresent(c -> dto.setNombreCategoria(c.getNombre()));
+        if (model.getIdCategoria() != null && diccionarios.categorias.containsKey(model.getIdCategoria())) {
+            dto.setNombreCategoria(diccionarios.categorias.get(model.getIdCategoria()).getNombre());
         }
         
-        if (model.getIdTipo() != null) {
-            tipoTransaccionRepository.findById(model.getIdTipo()).ifPresent(t -> dto.setNombreTipo(t.getDescripcion()));
+        if (model.getIdTipo() != null && diccionarios.tipos.containsKey(model.getIdTipo())) {
+            dto.setNombreTipo(diccionarios.tipos.get(model.getIdTipo()).getDescripcion());
         }
         
         return dto;
@@ -205,7 +394,7 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
      * @return Transacción grupal con transacciones individuales
      */
     public TransaccionGrupalDTO findByIdConDetalle(Long id, Long idUsuario) {
-        System.out.println("🔍 Obteniendo detalle de transacción grupal: " + id);
+        log.debug("Obteniendo detalle de transacción grupal {}", id);
         
         // Obtener la divisa del usuario
         String codigoDivisaUsuario = "EUR";
@@ -229,27 +418,43 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         final String divisaDestino = codigoDivisaUsuario;
         final String posicion = posicionSimbolo;
         
-        // Convertir a DTO
-        TransaccionGrupalDTO dto = convertToDTO(tg, divisaDestino, posicion);
+        // Empezar a resolver la tasa de la transacción grupal mientras se consultan las individuales
+        CompletableFuture<Void> tasasGrupal = conversionDivisaService.precargarTasasDivisas(
+            Collections.singleton(tg.getIdDivisaOriginal()), divisaDestino
+        );
         
         // Obtener transacciones individuales
         List<TransaccionModel> transaccionesIndividuales = transaccionRepository.findByIdTransaccionGrupal(id);
         
+        // Resolver en paralelo las tasas de las transacciones individuales
+        CompletableFuture<Void> tasas = tasasGrupal.thenCombine(conversionDivisaService.precargarTasasDivisas(
+            transaccionesIndividuales.stream().map(TransaccionModel::getIdDivisaOriginal).collect(Collectors.toSet()),
+            divisaDestino
+        ), (a, b) -> null);
+        
+        // Cargar de golpe las relaciones y los usuarios de todas las filas mientras se resuelven las tasas
+        Diccionarios diccionarios = cargarDiccionarios(List.of(tg), transaccionesIndividuales);
+        tasas.join();
+        
+        // Convertir a DTO
+        TransaccionGrupalDTO dto = convertToDTO(tg, divisaDestino, posicion, diccionarios);
+        
         // Convertir transacciones individuales a DTO con nombres de usuario
         List<TransaccionDTO> transaccionesDTO = transaccionesIndividuales.stream()
-            .map(t -> convertTransaccionToDTO(t, divisaDestino, posicion))
+            .map(t -> convertTransaccionToDTO(t, divisaDestino, posicion, diccionarios))
             .collect(Collectors.toList());
         
         dto.setTransaccionesIndividuales(transaccionesDTO);
         
-        System.out.println("✅ Detalle obtenido con " + transaccionesDTO.size() + " transacciones individuales");
+        log.debug("Detalle obtenido con {} transacciones individuales", transaccionesDTO.size());
         return dto;
     }
     
     /**
      * Convierte TransaccionModel a TransaccionDTO con nombre de usuario
      */
-    private TransaccionDTO convertTransaccionToDTO(TransaccionModel t, String divisaDestino, String posicionSimbolo) {
+    private TransaccionDTO convertTransaccionToDTO(TransaccionModel t, String divisaDestino, String posicionSimbolo,
+                                                   Diccionarios diccionarios) {
         TransaccionDTO dto = new TransaccionDTO();
         dto.setId(t.getId());
         dto.setTitulo(t.getTitulo());
@@ -267,9 +472,9 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         // Convertir importe
         Double importeOriginal = t.getImporte() != null ? t.getImporte() : 0.0;
         if (t.getIdDivisaOriginal() != null) {
-            Optional<DivisaModel> divisaOpt = divisaRepository.findById(t.getIdDivisaOriginal());
-            if (divisaOpt.isPresent()) {
-                String divisaOrigen = divisaOpt.get().getIso();
+            DivisaModel divisa = diccionarios.divisas.get(t.getIdDivisaOriginal());
+            if (divisa != null) {
+                String divisaOrigen = divisa.getIso();
                 double importeConvertido = conversionDivisaService.convertirMonto(
                     importeOriginal, divisaOrigen, divisaDestino
                 );
@@ -282,12 +487,11 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
         }
         
         // Agregar información de usuario (nombre de usuario, nombre y apellidos)
-        if (t.getIdUsuario() != null) {
-            usuarioRepository.findById(t.getIdUsuario()).ifPresent(u -> {
-                dto.setNombreUsuario(u.getNombreUsuario());
-                dto.setNombre(u.getNombre());
-                dto.setApellido(u.getApellido());
-            });
+        usuarioModel u = t.getIdUsuario() != null ? diccionarios.usuarios.get(t.getIdUsuario()) : null;
+        if (u != null) {
+            dto.setNombreUsuario(u.getNombreUsuario());
+            dto.setNombre(u.getNombre());
+            dto.setApellido(u.getApellido());
         }
         
         // Cargar relaciones
@@ -302,12 +506,15 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
                 dto.setEstadoTransaccion(t.getEstadoTransaccion());
             }
         } catch (Exception e) {
-            System.out.println("⚠️ No se pudieron cargar algunas relaciones para transacción " + t.getId());
+            if (LIMITE_ERRORES_RELACIONES.permitir()) {
+                log.warn("No se pudieron cargar algunas relaciones para transacción {} ({} avisos omitidos): {}",
+                         t.getId(), LIMITE_ERRORES_RELACIONES.omitidos(), e.getMessage());
+            }
         }
         
         return dto;
     }
-
+    
     /**
      * Elimina una transacción grupal y todas sus transacciones individuales asociadas
      * @param id ID de la transacción grupal
@@ -316,13 +523,28 @@ public class TransaccionGrupalService extends GenericService<TransaccionGrupalMo
     @Override
     @Transactional
     public boolean delete(Long id) {
+        Optional<TransaccionGrupalModel> transaccionGrupal = transaccionGrupalRepository.findById(id);
+        
         // 1. Buscar y eliminar las transacciones individuales asociadas
         List<TransaccionModel> transaccionesIndividuales = transaccionRepository.findByIdTransaccionGrupal(id);
         if (!transaccionesIndividuales.isEmpty()) {
+            // Las deudas que seguían pendientes dejan de contar en los saldos del grupo (una sola sentencia)
+            transaccionGrupal.ifPresent(tg -> saldoGrupoService.registrarDeudas(transaccionesIndividuales.stream()
+                .map(t -> saldoGrupoService.deudaDe(tg, t))
+                .filter(Objects::nonNull)
+                .map(SaldoGrupoService.Deuda::anulada)
+                .collect(Collectors.toList())));
+            evaluadorPresupuestoService.publicarCambio(transaccionesIndividuales.stream()
+                .flatMap(t -> evaluadorPresupuestoService.aportacionesDe(t).stream())
+                .collect(Collectors.toList()), List.of());
             transaccionRepository.deleteAll(transaccionesIndividuales);
         }
         
         // 2. Eliminar la transacción grupal
-        return super.delete(id);
+        boolean eliminada = super.delete(id);
+        if (eliminada && transaccionGrupal.isPresent()) {
+            eventoGrupoService.publicar(EventoGrupoService.Tipo.TRANSACCION_ELIMINADA, transaccionGrupal.get().getIdGrupo(), id);
+        }
+        return eliminada;
     }
 }
@@ -5,20 +5,32 @@ import com.lumeo.lumeo.dtos.TransaccionDTO;
 import com.lumeo.lumeo.models.TransaccionModel;
 import com.lumeo.lumeo.models.usuarioModel;
 import com.lumeo.lumeo.models.DivisaModel;
+import com.lumeo.lumeo.repositories.TransaccionGrupalRepository;
 import com.lumeo.lumeo.repositories.TransaccionRepository;
 import com.lumeo.lumeo.repositories.UsuarioRepository;
 import com.lumeo.lumeo.repositories.DivisaRepository;
+import com.lumeo.lumeo.util.LimitadorLog;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class TransaccionService extends GenericService<TransaccionModel, Long> {
     
+    private static final Logger log = LoggerFactory.getLogger(TransaccionService.class);
+    
+    // Los fallos al cargar relaciones se repiten por cada fila: como mucho 5 avisos por minuto
+    private static final LimitadorLog LIMITE_ERRORES_RELACIONES = LimitadorLog.maximo(5, Duration.ofMinutes(1));
+    
     @Autowired
     private TransaccionRepository transaccionRepository;
     
@@ -31,6 +43,18 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
     @Autowired
     private ConversionDivisaService conversionDivisaService;
     
+    @Autowired
+    private SaldoGrupoService saldoGrupoService;
+    
+    @Autowired
+    private EventoGrupoService eventoGrupoService;
+    
+    @Autowired
+    private TransaccionGrupalRepository transaccionGrupalRepository;
+    
+    @Autowired
+    private EvaluadorPresupuestoService evaluadorPresupuestoService;
+    
     @Override
     protected JpaRepository<TransaccionModel, Long> getRepository() {
         return transaccionRepository;
@@ -40,6 +64,7 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
      * Override del método create para establecer id_divisa_original automáticamente
      */
     @Override
+    @Transactional
     public TransaccionModel create(TransaccionModel transaccion) {
         // Si no tiene id_divisa_original, establecer la divisa actual del usuario
         if (transaccion.getIdDivisaOriginal() == null && transaccion.getIdUsuario() != null) {
@@ -49,18 +74,32 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
             }
         }
         
-        return super.create(transaccion);
+        TransaccionModel creada = super.create(transaccion);
+        evaluadorPresupuestoService.publicarCambio(List.of(), evaluadorPresupuestoService.aportacionesDe(creada));
+        return creada;
     }
     
     /**
      * Override del método editById para cargar relaciones antes de devolver
+     * Si la transacción es parte de una transacción grupal, los cambios de importe o
+     * de estado (marcarla como pagada) se trasladan a los saldos del grupo
      */
     @Override
     @Transactional
     public Optional<TransaccionModel> editById(Long id, TransaccionModel updatedEntity) {
         return transaccionRepository.findById(id)
                 .map(existingEntity -> {
+                    // Calcular la deuda anterior antes de que save() fusione los cambios en la entidad
+                    SaldoGrupoService.Deuda deudaAnterior = saldoGrupoService.deudaDe(existingEntity);
+                    List<EvaluadorPresupuestoService.Aportacion> gastoAnterior = evaluadorPresupuestoService.aportacionesDe(existingEntity);
                     TransaccionModel saved = transaccionRepository.save(updatedEntity);
+                    saldoGrupoService.actualizarDeuda(deudaAnterior, saldoGrupoService.deudaDe(saved));
+                    evaluadorPresupuestoService.publicarCambio(gastoAnterior, evaluadorPresupuestoService.aportacionesDe(saved));
+                    if (saved.getIdTransaccionGrupal() != null) {
+                        transaccionGrupalRepository.findById(saved.getIdTransaccionGrupal()).ifPresent(tg ->
+                            eventoGrupoService.publicar(EventoGrupoService.Tipo.TRANSACCION_ACTUALIZADA, tg.getIdGrupo(), tg.getId())
+                        );
+                    }
                     // Recargar con relaciones para evitar LazyInitializationException
                     return transaccionRepository.findByIdUsuarioOrIdDestinatarioWithRelations(
                         saved.getIdUsuario(), 
@@ -72,6 +111,27 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
                 });
     }
     
+    /**
+     * Override del método delete para descontar de los saldos del grupo la deuda pendiente
+     */
+    @Override
+    @Transactional
+    public boolean delete(Long id) {
+        Optional<TransaccionModel> transaccion = transaccionRepository.findById(id);
+        if (transaccion.isEmpty()) {
+            return false;
+        }
+        saldoGrupoService.actualizarDeuda(saldoGrupoService.deudaDe(transaccion.get()), null);
+        evaluadorPresupuestoService.publicarCambio(evaluadorPresupuestoService.aportacionesDe(transaccion.get()), List.of());
+        transaccionRepository.delete(transaccion.get());
+        if (transaccion.get().getIdTransaccionGrupal() != null) {
+            transaccionGrupalRepository.findById(transaccion.get().getIdTransaccionGrupal()).ifPresent(tg ->
+                eventoGrupoService.publicar(EventoGrupoService.Tipo.TRANSACCION_ACTUALIZADA, tg.getIdGrupo(), tg.getId())
+            );
+        }
+        return true;
+    }
+    
     /**
      * Obtiene todas las transacciones de un usuario
      * @param idUsuario ID del usuario
@@ -90,8 +150,7 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
      */
     @Transactional(readOnly = true)
     public List<TransaccionDTO> findByIdUsuarioConvertidas(Long idUsuario) {
-        System.out.println("🔍 Obteniendo transacciones convertidas para usuario: " + idUsuario);
-        long startTime = System.currentTimeMillis();
+        log.debug("Obteniendo transacciones convertidas para usuario {}", idUsuario);
         
         // Obtener la divisa del usuario y su posición de símbolo
         String codigoDivisaUsuario = "EUR";
@@ -107,7 +166,13 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
         
         // Usar query con JOIN FETCH para cargar relaciones de una vez
         List<TransaccionModel> transacciones = transaccionRepository.findByIdUsuarioOrIdDestinatarioWithRelations(idUsuario, idUsuario);
-        System.out.println("⏱️ Query ejecutada en: " + (System.currentTimeMillis() - startTime) + "ms");
+        log.debug("Transacciones encontradas: {}", transacciones.size());
+        
+        // Resolver en paralelo las tasas de todas las divisas origen antes de convertir
+        conversionDivisaService.precargarTasasDivisas(
+            transacciones.stream().map(TransaccionModel::getIdDivisaOriginal).collect(Collectors.toSet()),
+            codigoDivisaUsuario
+        ).join();
         
         // Convertir a DTO con importes convertidos
         final String divisaDestino = codigoDivisaUsuario;
@@ -116,8 +181,7 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
             .map(transaccion -> convertToFullDTO(transaccion, divisaDestino, posicion))
             .collect(Collectors.toList());
         
-        long totalTime = System.currentTimeMillis() - startTime;
-        System.out.println("✅ Transacciones convertidas: " + transaccionesConvertidas.size() + " en " + totalTime + "ms");
+        log.debug("Transacciones convertidas: {}", transaccionesConvertidas.size());
         return transaccionesConvertidas;
     }
     
@@ -127,7 +191,7 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
      * @return Lista de los últimos 5 gastos como DTO con importes convertidos
      */
     public List<UltimoGastoDTO> getUltimosGastos(Long idUsuario) {
-        System.out.println("🔍 Obteniendo últimos 5 gastos para usuario: " + idUsuario);
+        log.debug("Obteniendo últimos 5 gastos para usuario {}", idUsuario);
         
         // Obtener la divisa del usuario y su posición de símbolo
         String codigoDivisaUsuario = "EUR";
@@ -151,7 +215,7 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
             .map(transaccion -> convertToDTO(transaccion, divisaDestino, posicion))
             .collect(Collectors.toList());
         
-        System.out.println("✅ Últimos gastos encontrados: " + ultimosGastos.size());
+        log.debug("Últimos gastos encontrados: {}", ultimosGastos.size());
         return ultimosGastos;
     }
     
@@ -196,7 +260,10 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
                 dto.setColorCategoria(transaccion.getCategoria().getColor());
             } catch (Exception e) {
                 // Si falla al cargar la categoría, continuar sin ella
-                System.out.println("⚠️ No se pudo cargar la categoría para transacción " + transaccion.getId());
+                if (LIMITE_ERRORES_RELACIONES.permitir()) {
+                    log.warn("No se pudo cargar la categoría para transacción {} ({} avisos omitidos)",
+                             transaccion.getId(), LIMITE_ERRORES_RELACIONES.omitidos());
+                }
             }
         }
         
@@ -251,7 +318,10 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
                 dto.setEstadoTransaccion(transaccion.getEstadoTransaccion());
             }
         } catch (Exception e) {
-            System.out.println("⚠️ No se pudieron cargar algunas relaciones para transacción " + transaccion.getId());
+            if (LIMITE_ERRORES_RELACIONES.permitir()) {
+                log.warn("No se pudieron cargar algunas relaciones para transacción {} ({} avisos omitidos): {}",
+                         transaccion.getId(), LIMITE_ERRORES_RELACIONES.omitidos(), e.getMessage());
+            }
         }
         
         return dto;
@@ -301,7 +371,7 @@ public class TransaccionService extends GenericService<TransaccionModel, Long> {
             return dto;
         }).collect(Collectors.toList());
     }
-
+    
     private TransaccionDTO convertirADTO(TransaccionModel transaccion, String divisaDestino) {
         TransaccionDTO dto = new TransaccionDTO();
         dto.setId(transaccion.getId());
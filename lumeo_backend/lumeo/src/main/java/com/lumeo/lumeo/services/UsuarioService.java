@@ -1,20 +1,63 @@
 package com.lumeo.lumeo.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.lumeo.lumeo.models.usuarioModel;
 import com.lumeo.lumeo.repositories.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@Timed(value = "lumeo.servicio", histogram = true)
 public class UsuarioService extends GenericService<usuarioModel, Long> {
     
     @Autowired
     private UsuarioRepository usuarioRepository;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private FiltroUsuariosService filtroUsuarios;
+    
+    @Value("${lumeo.usuarios.cache-uid.max:10000}")
+    private long maxCacheUid;
+    
+    @Value("${lumeo.usuarios.cache-uid.ttl-ms:600000}")
+    private long ttlCacheUidMs;
+    
+    /**
+     * Lo que los endpoints /uid/{uid} necesitan del usuario para seguir sin volver a leerlo
+     */
+    public record DatosUsuario(Long id, Long idDivisa, String idioma) {
+    }
+    
+    // Solo se guardan usuarios que existen: un uid desconocido puede darse de alta en cualquier momento
+    private Cache<UUID, DatosUsuario> cacheUid;
+    
+    @PostConstruct
+    void iniciarCache() {
+        cacheUid = Caffeine.newBuilder()
+            .maximumSize(maxCacheUid)
+            .expireAfterWrite(Duration.ofMillis(ttlCacheUidMs))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cacheUid, "usuarios.uid");
+    }
+    
     @Override
     protected JpaRepository<usuarioModel, Long> getRepository() {
         return usuarioRepository;
@@ -24,15 +67,119 @@ public class UsuarioService extends GenericService<usuarioModel, Long> {
         return usuarioRepository.findByUid(uid);
     }
     
+    /**
+     * Id, divisa e idioma del usuario con ese uid, desde la caché si es posible
+     * Sirve para que los endpoints por uid consulten después por id_usuario sin JOIN con usuario
+     * La divisa puede ir atrasada hasta ttl-ms respecto a otra instancia: para guardarla usar divisaActual
+     */
+    public Optional<DatosUsuario> resolverUid(UUID uid) {
+        // get() con cargador: una invalidación del mismo uid espera a la carga en curso, así
+        // una lectura anterior al commit de un cambio no puede guardarse después de invalidar
+        // Si el cargador devuelve null (uid desconocido) no se guarda nada
+        return Optional.ofNullable(cacheUid.get(uid, clave -> usuarioRepository.findByUid(clave)
+            .map(u -> new DatosUsuario(u.getId(), u.getIdDivisa(), u.getIdioma()))
+            .orElse(null)));
+    }
+    
+    /**
+     * Divisa actual del usuario leída de la base de datos, sin caché
+     * Para escrituras que copian la divisa (divisa original de una meta o transacción)
+     */
+    public Optional<Long> divisaActual(Long idUsuario) {
+        return usuarioRepository.findById(idUsuario).map(usuarioModel::getIdDivisa);
+    }
+    
     public Optional<usuarioModel> findByNombreUsuario(String nombreUsuario) {
         return usuarioRepository.findByNombreUsuario(nombreUsuario);
     }
     
+    /**
+     * Solo consulta la base de datos si el filtro de nombres no descarta que exista
+     */
     public boolean existsByNombreUsuario(String nombreUsuario) {
-        return usuarioRepository.existsByNombreUsuario(nombreUsuario);
+        return filtroUsuarios.puedeExistirNombreUsuario(nombreUsuario)
+            && usuarioRepository.existsByNombreUsuario(nombreUsuario);
     }
     
+    /**
+     * Solo consulta la base de datos si el filtro de correos no descarta que exista
+     */
     public boolean existsByEmail(String email) {
-        return usuarioRepository.existsByEmail(email);
+        return filtroUsuarios.puedeExistirEmail(email)
+            && usuarioRepository.existsByEmail(email);
+    }
+    
+    // Todas las escrituras de usuario invalidan su entrada de la caché de uid después del commit
+    // (si se invalidara antes, una lectura concurrente podría volver a cargar el valor antiguo)
+    // y añaden el nombre y el correo al filtro de usuarios
+    
+    @Override
+    @Transactional
+    public usuarioModel create(usuarioModel usuario) {
+        usuarioModel guardado = super.create(usuario);
+        filtroUsuarios.registrar(guardado.getNombreUsuario(), guardado.getEmail());
+        olvidar(guardado);
+        return guardado;
+    }
+    
+    @Override
+    @Transactional
+    public usuarioModel save(usuarioModel usuario) {
+        usuarioModel guardado = super.save(usuario);
+        filtroUsuarios.registrar(guardado.getNombreUsuario(), guardado.getEmail());
+        olvidar(guardado);
+        return guardado;
+    }
+    
+    @Override
+    @Transactional
+    public Optional<usuarioModel> editById(Long id, usuarioModel usuario) {
+        Optional<usuarioModel> editado = super.editById(id, usuario);
+        editado.ifPresent(u -> {
+            filtroUsuarios.registrar(u.getNombreUsuario(), u.getEmail());
+            olvidar(u);
+        });
+        olvidarId(id);
+        return editado;
+    }
+    
+    @Override
+    @Transactional
+    public boolean delete(Long id) {
+        usuarioRepository.findById(id).ifPresent(this::olvidar);
+        boolean eliminado = super.delete(id);
+        olvidarId(id);
+        return eliminado;
+    }
+    
+    private void olvidar(usuarioModel usuario) {
+        UUID uid = usuario.getUid();
+        Long id = usuario.getId();
+        despuesDelCommit(() -> {
+            if (uid != null) {
+                cacheUid.invalidate(uid);
+            }
+            if (id != null) {
+                cacheUid.asMap().values().removeIf(d -> d.id().equals(id));
+            }
+        });
+    }
+    
+    // Por si cambió el uid o no se conoce: se busca la entrada por id
+    private void olvidarId(Long id) {
+        despuesDelCommit(() -> cacheUid.asMap().values().removeIf(d -> d.id().equals(id)));
+    }
+    
+    private void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
     }
-}
\ No newline at end of file
+}
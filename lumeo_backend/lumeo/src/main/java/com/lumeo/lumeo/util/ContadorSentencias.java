@@ -0,0 +1,91 @@
+package com.lumeo.lumeo.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cuenta las sentencias SQL que se ejecutan en el hilo actual, de JPA/Hibernate o de JdbcTemplate
+ * (las registra config/ContadorSentenciasDataSource)
+ *
+ * Los conteos se pueden anidar: una sentencia se suma a todos los conteos abiertos,
+ * así un test puede contar alrededor de una petición que a su vez cuenta el filtro HTTP
+ */
+public final class ContadorSentencias {
+
+    private static final ThreadLocal<Conteo> ACTUAL = new ThreadLocal<>();
+
+    private ContadorSentencias() {
+    }
+
+    /**
+     * Sentencias ejecutadas desde que se inició un conteo
+     */
+    public static final class Conteo {
+        private final Conteo padre;
+        private final Map<String, Integer> porSentencia = new HashMap<>();
+        private int total;
+
+        private Conteo(Conteo padre) {
+            this.padre = padre;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public Map<String, Integer> getPorSentencia() {
+            return porSentencia;
+        }
+
+        /**
+         * Sentencia que más veces se ha repetido (candidata a N+1)
+         */
+        public Optional<Map.Entry<String, Integer>> masRepetida() {
+            return porSentencia.entrySet().stream().max(Map.Entry.comparingByValue());
+        }
+    }
+
+    /**
+     * Abre un conteo en el hilo actual
+     */
+    public static Conteo iniciar() {
+        Conteo conteo = new Conteo(ACTUAL.get());
+        ACTUAL.set(conteo);
+        return conteo;
+    }
+
+    /**
+     * Cierra el conteo más reciente del hilo actual y lo devuelve
+     * @return El conteo cerrado, o null si no había ninguno abierto
+     */
+    public static Conteo detener() {
+        Conteo conteo = ACTUAL.get();
+        if (conteo == null) {
+            return null;
+        }
+        if (conteo.padre == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(conteo.padre);
+        }
+        return conteo;
+    }
+
+    /**
+     * Conteo abierto en el hilo actual, o null si no hay ninguno
+     */
+    public static Conteo actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Suma una sentencia a todos los conteos abiertos del hilo actual
+     */
+    public static void registrar(String sql) {
+        for (Conteo conteo = ACTUAL.get(); conteo != null; conteo = conteo.padre) {
+            conteo.total++;
+            conteo.porSentencia.merge(sql, 1, Integer::sum);
+        }
+    }
+}
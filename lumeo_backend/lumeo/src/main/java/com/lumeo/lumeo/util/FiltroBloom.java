@@ -0,0 +1,94 @@
+package com.lumeo.lumeo.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre cadenas: responde "seguro que no está" o "puede estar"
+ *
+ * Nunca da falsos negativos; la proporción de falsos positivos se fija al crearlo
+ * para un número de elementos esperado y crece si se añaden muchos más
+ * No admite borrados: un elemento eliminado sigue dando "puede estar" hasta que
+ * el filtro se vuelve a construir
+ *
+ * Es seguro entre hilos: los bits solo pasan de 0 a 1 y se activan con compareAndSet
+ */
+public final class FiltroBloom {
+    
+    private final AtomicLongArray palabras;
+    private final long numBits;
+    private final int numHashes;
+    
+    /**
+     * @param elementosEsperados Elementos que se espera guardar
+     * @param probabilidadFalsoPositivo Proporción de falsos positivos con ese número de elementos (0-1)
+     */
+    public FiltroBloom(int elementosEsperados, double probabilidadFalsoPositivo) {
+        if (probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Probabilidad de falso positivo fuera de rango: " + probabilidadFalsoPositivo);
+        }
+        int n = Math.max(elementosEsperados, 1);
+        long bits = (long) Math.ceil(-n * Math.log(probabilidadFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        int palabrasNecesarias = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.palabras = new AtomicLongArray(palabrasNecesarias);
+        this.numBits = (long) palabrasNecesarias << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+    
+    public void add(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual = palabras.get(palabra);
+            while ((actual & mascara) == 0 && !palabras.compareAndSet(palabra, actual, actual | mascara)) {
+                actual = palabras.get(palabra);
+            }
+        }
+    }
+    
+    /**
+     * @return false si el valor seguro que no se ha añadido; true si puede haberse añadido
+     */
+    public boolean mightContain(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public long numBits() {
+        return numBits;
+    }
+    
+    public int numHashes() {
+        return numHashes;
+    }
+    
+    // Las k posiciones salen de dos hashes (h1 + i·h2, Kirsch-Mitzenmacher): una sola pasada por la cadena
+    private static long hash(String valor) {
+        // FNV-1a de 64 bits sobre los char, sin pasar a bytes
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+    
+    // Finalizador de MurmurHash3
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
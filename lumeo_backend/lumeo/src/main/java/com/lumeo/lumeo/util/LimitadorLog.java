@@ -0,0 +1,90 @@
+package com.lumeo.lumeo.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Muestreo y limitación de frecuencia para logs de eventos muy frecuentes
+ * (aciertos de caché, errores repetidos de una API externa...)
+ *
+ * Uso:
+ *   if (log.isDebugEnabled() && LIMITADOR.permitir()) {
+ *       log.debug("Evento {} ({} omitidos)", dato, LIMITADOR.omitidos());
+ *   }
+ *
+ * Es seguro entre hilos y no bloquea: en el peor caso, con mucha concurrencia
+ * al cambiar de ventana, se emite algún mensaje de más
+ */
+public final class LimitadorLog {
+
+    private final int muestreo;
+    private final int maxPorVentana;
+    private final long ventanaNanos;
+
+    private final AtomicLong eventos = new AtomicLong();
+    private final AtomicLong inicioVentana = new AtomicLong(System.nanoTime());
+    private final AtomicInteger emitidosVentana = new AtomicInteger();
+    private final AtomicLong omitidos = new AtomicLong();
+
+    private LimitadorLog(int muestreo, int maxPorVentana, Duration ventana) {
+        if (muestreo < 1 || maxPorVentana < 1) {
+            throw new IllegalArgumentException("El muestreo y el máximo por ventana deben ser mayores que 0");
+        }
+        this.muestreo = muestreo;
+        this.maxPorVentana = maxPorVentana;
+        this.ventanaNanos = ventana.toNanos();
+    }
+
+    /**
+     * Deja pasar uno de cada N eventos
+     */
+    public static LimitadorLog muestreo(int cadaN) {
+        return new LimitadorLog(cadaN, Integer.MAX_VALUE, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Deja pasar como máximo N eventos por ventana de tiempo
+     */
+    public static LimitadorLog maximo(int eventos, Duration ventana) {
+        return new LimitadorLog(1, eventos, ventana);
+    }
+
+    /**
+     * Combina ambos: uno de cada N eventos y, de esos, como máximo M por ventana
+     */
+    public static LimitadorLog muestreoConMaximo(int cadaN, int eventos, Duration ventana) {
+        return new LimitadorLog(cadaN, eventos, ventana);
+    }
+
+    /**
+     * Registra un evento e indica si debe escribirse en el log
+     */
+    public boolean permitir() {
+        if (muestreo > 1 && eventos.getAndIncrement() % muestreo != 0) {
+            omitidos.incrementAndGet();
+            return false;
+        }
+
+        if (maxPorVentana != Integer.MAX_VALUE) {
+            long ahora = System.nanoTime();
+            long inicio = inicioVentana.get();
+            if (ahora - inicio >= ventanaNanos && inicioVentana.compareAndSet(inicio, ahora)) {
+                emitidosVentana.set(0);
+            }
+            if (emitidosVentana.incrementAndGet() > maxPorVentana) {
+                omitidos.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve los eventos omitidos desde la última llamada y reinicia el contador
+     * Pensado para incluirlo en el mensaje que sí se escribe
+     */
+    public long omitidos() {
+        return omitidos.getAndSet(0);
+    }
+}
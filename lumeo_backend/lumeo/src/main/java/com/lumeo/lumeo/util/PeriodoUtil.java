@@ -0,0 +1,103 @@
+package com.lumeo.lumeo.util;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Locale;
+
+/**
+ * Conversión entre el periodo numérico de un mes (yyyymm, por ejemplo 202503)
+ * y la forma en texto que usa la API de presupuestos (mes "Marzo", anio "2025")
+ *
+ * El periodo es un entero ordenable e indexable: periodo / 100 es el año y periodo % 100 el mes
+ */
+public final class PeriodoUtil {
+    
+    private static final String[] NOMBRES_MES = {
+        "Enero", "Febrero", "Marzo", "Abril", "Mayo", "Junio",
+        "Julio", "Agosto", "Septiembre", "Octubre", "Noviembre", "Diciembre"
+    };
+    
+    private PeriodoUtil() {
+    }
+    
+    public static int periodo(int anio, int mes) {
+        if (mes < 1 || mes > 12) {
+            throw new IllegalArgumentException("Mes fuera de rango: " + mes);
+        }
+        return anio * 100 + mes;
+    }
+    
+    public static int periodo(YearMonth mes) {
+        return periodo(mes.getYear(), mes.getMonthValue());
+    }
+    
+    /**
+     * Periodo a partir del nombre del mes en español y el año en texto
+     * @return El periodo, o null si el mes o el año no se reconocen
+     */
+    public static Integer periodo(String nombreMes, String anio) {
+        int mes = numeroMes(nombreMes);
+        if (mes == 0 || anio == null) {
+            return null;
+        }
+        try {
+            return periodo(Integer.parseInt(anio.trim()), mes);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Indica si el entero tiene forma de periodo (mes entre 1 y 12)
+     */
+    public static boolean esValido(int periodo) {
+        int mes = mes(periodo);
+        return periodo > 0 && mes >= 1 && mes <= 12;
+    }
+    
+    public static int anio(int periodo) {
+        return periodo / 100;
+    }
+    
+    public static int mes(int periodo) {
+        return periodo % 100;
+    }
+    
+    public static YearMonth aYearMonth(int periodo) {
+        return YearMonth.of(anio(periodo), mes(periodo));
+    }
+    
+    /**
+     * Primer día del mes del periodo
+     */
+    public static LocalDate inicio(int periodo) {
+        return LocalDate.of(anio(periodo), mes(periodo), 1);
+    }
+    
+    /**
+     * Nombre del mes en español con la inicial en mayúscula ("Marzo")
+     */
+    public static String nombreMes(int mes) {
+        return NOMBRES_MES[mes - 1];
+    }
+    
+    /**
+     * Número del mes (1-12) a partir de su nombre en español, sin distinguir mayúsculas
+     * @return El número del mes, o 0 si no se reconoce
+     */
+    public static int numeroMes(String nombreMes) {
+        if (nombreMes == null) {
+            return 0;
+        }
+        String nombre = nombreMes.trim().toLowerCase(Locale.ROOT);
+        if (nombre.equals("setiembre")) {
+            return 9;
+        }
+        for (int i = 0; i < NOMBRES_MES.length; i++) {
+            if (NOMBRES_MES[i].toLowerCase(Locale.ROOT).equals(nombre)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lumeo.lumeo.config;
+
+import com.lumeo.lumeo.util.ContadorSentencias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContadorSentenciasDataSourceTest {
+
+	@AfterEach
+	void limpiar() {
+		while (ContadorSentencias.detener() != null) {
+		}
+	}
+
+	@Test
+	void cuentaLasSentenciasPreparadasYLasDirectas() throws Exception {
+		PreparedStatement preparada = mock(PreparedStatement.class);
+		Statement directa = mock(Statement.class);
+		Connection conexion = mock(Connection.class);
+		when(conexion.prepareStatement(anyString())).thenReturn(preparada);
+		when(conexion.createStatement()).thenReturn(directa);
+		DataSource destino = mock(DataSource.class);
+		when(destino.getConnection()).thenReturn(conexion);
+
+		ContadorSentencias.Conteo conteo = ContadorSentencias.iniciar();
+		try (Connection c = new ContadorSentenciasDataSource(destino).getConnection()) {
+			PreparedStatement ps = c.prepareStatement("select * from divisa where id=?");
+			ps.setLong(1, 1L);
+			ps.executeQuery();
+			ps.executeQuery();
+			c.createStatement().executeUpdate("update usuario set idioma='es'");
+		}
+		ContadorSentencias.detener();
+
+		assertEquals(3, conteo.getTotal());
+		assertEquals(2, conteo.getPorSentencia().get("select * from divisa where id=?"));
+		verify(preparada).setLong(1, 1L);
+		verify(conexion).close();
+	}
+
+	@Test
+	void unLoteCuentaUnaVez() throws Exception {
+		PreparedStatement preparada = mock(PreparedStatement.class);
+		Connection conexion = mock(Connection.class);
+		when(conexion.prepareStatement(anyString())).thenReturn(preparada);
+		DataSource destino = mock(DataSource.class);
+		when(destino.getConnection()).thenReturn(conexion);
+
+		ContadorSentencias.Conteo conteo = ContadorSentencias.iniciar();
+		try (Connection c = new ContadorSentenciasDataSource(destino).getConnection()) {
+			PreparedStatement ps = c.prepareStatement("insert into usuario_grupo (id_usuario, id_grupo) values (?, ?)");
+			ps.addBatch();
+			ps.addBatch();
+			ps.executeBatch();
+		}
+		ContadorSentencias.detener();
+
+		assertEquals(1, conteo.getTotal());
+	}
+}
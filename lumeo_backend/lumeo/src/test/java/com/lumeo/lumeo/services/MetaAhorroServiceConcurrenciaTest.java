@@ -0,0 +1,118 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.models.MetaAhorroModel;
+import com.lumeo.lumeo.models.usuarioModel;
+import com.lumeo.lumeo.repositories.MetaAhorroRepository;
+import com.lumeo.lumeo.repositories.TransaccionRepository;
+import com.lumeo.lumeo.repositories.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Aportes simultáneos a una meta de ahorro contra una base de datos real
+ * Solo se ejecuta con DATABASE_URL definida (crea y borra sus propios datos)
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = ".+")
+class MetaAhorroServiceConcurrenciaTest {
+
+	private static final int APORTANTES = 100;
+
+	@Autowired
+	private MetaAhorroService metaAhorroService;
+
+	@Autowired
+	private MetaAhorroRepository metaAhorroRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TransaccionRepository transaccionRepository;
+
+	private usuarioModel usuario;
+	private MetaAhorroModel meta;
+
+	@BeforeEach
+	void crearDatos() {
+		usuario = new usuarioModel();
+		usuario.setNombreUsuario("prueba_meta_" + UUID.randomUUID().toString().substring(0, 8));
+		usuario = usuarioRepository.save(usuario);
+
+		meta = new MetaAhorroModel();
+		meta.setTitulo("Meta de prueba");
+		meta.setCantidadObjetivo(150.0);
+		meta.setCantidadActual(0.0);
+		meta.setIdUsuario(usuario.getId());
+		meta = metaAhorroRepository.save(meta);
+	}
+
+	@AfterEach
+	void borrarDatos() {
+		transaccionRepository.deleteAll(transaccionRepository.findByIdUsuario(usuario.getId()));
+		metaAhorroRepository.deleteById(meta.getId());
+		usuarioRepository.deleteById(usuario.getId());
+	}
+
+	@Test
+	void losAportesSimultaneosNoSePierden() throws Exception {
+		int aceptados = aportarEnParalelo(1.0);
+
+		assertEquals(APORTANTES, aceptados);
+		assertEquals(100.0, metaAhorroRepository.findById(meta.getId()).orElseThrow().getCantidadActual(), 1e-9);
+		assertEquals(APORTANTES, transaccionRepository.findByIdUsuario(usuario.getId()).size());
+	}
+
+	@Test
+	void losAportesSimultaneosNoSuperanElObjetivo() throws Exception {
+		// 100 aportes de 2 sobre un objetivo de 150: solo caben 75
+		int aceptados = aportarEnParalelo(2.0);
+
+		assertEquals(75, aceptados);
+		assertEquals(150.0, metaAhorroRepository.findById(meta.getId()).orElseThrow().getCantidadActual(), 1e-9);
+		assertEquals(75, transaccionRepository.findByIdUsuario(usuario.getId()).size());
+	}
+
+	private int aportarEnParalelo(double cantidad) throws Exception {
+		ExecutorService hilos = Executors.newFixedThreadPool(APORTANTES);
+		CountDownLatch salida = new CountDownLatch(1);
+		try {
+			List<Future<Optional<Double>>> resultados = new ArrayList<>();
+			for (int i = 0; i < APORTANTES; i++) {
+				resultados.add(hilos.submit(() -> {
+					salida.await();
+					return metaAhorroService.agregarCantidad(meta.getId(), cantidad);
+				}));
+			}
+			salida.countDown();
+
+			int aceptados = 0;
+			for (Future<Optional<Double>> resultado : resultados) {
+				if (resultado.get(60, TimeUnit.SECONDS).isPresent()) {
+					aceptados++;
+				}
+			}
+			return aceptados;
+		} finally {
+			hilos.shutdown();
+			assertTrue(hilos.awaitTermination(60, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.models.PresupuestoModel;
+import com.lumeo.lumeo.repositories.PresupuestoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresupuestoServiceTest {
+
+	private static final Long ID = 7L;
+
+	private final PresupuestoService service = new PresupuestoService();
+	private final PresupuestoRepository presupuestoRepository = mock(PresupuestoRepository.class);
+
+	@BeforeEach
+	void preparar() {
+		// Presupuesto de marzo de 2025 por 100 del que ya se avisó el 80%
+		PresupuestoModel existente = presupuesto(100.0, "Marzo", "2025");
+		existente.setPeriodo(202503);
+		existente.setUmbralNotificado(80);
+		when(presupuestoRepository.findById(ID)).thenReturn(Optional.of(existente));
+		when(presupuestoRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+
+		ReflectionTestUtils.setField(service, "presupuestoRepository", presupuestoRepository);
+	}
+
+	@Test
+	void cambiarLaCantidadVuelveAActivarLasAlertas() {
+		PresupuestoModel editado = service.editById(ID, presupuesto(200.0, "Marzo", "2025")).orElseThrow();
+
+		verify(presupuestoRepository).reiniciarUmbralNotificado(ID);
+		assertNull(editado.getUmbralNotificado());
+	}
+
+	@Test
+	void cambiarElMesVuelveAActivarLasAlertas() {
+		service.editById(ID, presupuesto(100.0, "Abril", "2025"));
+
+		verify(presupuestoRepository).reiniciarUmbralNotificado(ID);
+	}
+
+	@Test
+	void sinCambiosDeCantidadNiMesSeMantienenLasAlertas() {
+		service.editById(ID, presupuesto(100.0, "marzo", "2025"));
+
+		verify(presupuestoRepository, never()).reiniciarUmbralNotificado(any());
+	}
+
+	@Test
+	void cambiarAUnMesYaUsadoEsUnConflicto() {
+		when(presupuestoRepository.existsByIdUsuarioAndPeriodo(1L, 202504)).thenReturn(true);
+
+		assertThrows(PresupuestoService.MesDuplicadoException.class,
+			() -> service.editById(ID, presupuesto(100.0, "Abril", "2025")));
+		verify(presupuestoRepository, never()).saveAndFlush(any());
+	}
+
+	private static PresupuestoModel presupuesto(Double cantidad, String mes, String anio) {
+		PresupuestoModel presupuesto = new PresupuestoModel();
+		presupuesto.setCantidad(cantidad);
+		presupuesto.setMes(mes);
+		presupuesto.setAnio(anio);
+		presupuesto.setIdUsuario(1L);
+		return presupuesto;
+	}
+}
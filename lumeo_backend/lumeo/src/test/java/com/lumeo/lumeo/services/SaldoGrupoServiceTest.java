@@ -0,0 +1,122 @@
+package com.lumeo.lumeo.services;
+
+import com.lumeo.lumeo.dtos.PagoLiquidacionDTO;
+import com.lumeo.lumeo.models.SaldoGrupoModel;
+import com.lumeo.lumeo.models.TransaccionGrupalModel;
+import com.lumeo.lumeo.models.TransaccionModel;
+import com.lumeo.lumeo.repositories.SaldoGrupoRepository;
+import com.lumeo.lumeo.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SaldoGrupoServiceTest {
+
+	private static final Long ID_GRUPO = 1L;
+
+	private final SaldoGrupoService service = new SaldoGrupoService();
+	private final Map<Long, Double> saldos = new HashMap<>();
+
+	@BeforeEach
+	void preparar() {
+		// saldo_grupo en memoria: sumarSaldo acumula y findByIdGrupo devuelve lo acumulado
+		SaldoGrupoRepository saldoGrupoRepository = mock(SaldoGrupoRepository.class);
+		doAnswer(inv -> saldos.merge(inv.getArgument(1), inv.getArgument(2), Double::sum))
+			.when(saldoGrupoRepository).sumarSaldo(anyLong(), anyLong(), anyDouble());
+		when(saldoGrupoRepository.findByIdGrupo(ID_GRUPO)).thenAnswer(inv -> saldos.entrySet().stream()
+			.map(e -> new SaldoGrupoModel(ID_GRUPO, e.getKey(), e.getValue()))
+			.toList());
+
+		UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+		when(usuarioRepository.findAllById(any())).thenReturn(List.of());
+
+		ReflectionTestUtils.setField(service, "saldoGrupoRepository", saldoGrupoRepository);
+		ReflectionTestUtils.setField(service, "usuarioRepository", usuarioRepository);
+	}
+
+	@Test
+	void laDeudaPendienteSeSaldaAlPagar() {
+		TransaccionGrupalModel cena = transaccionGrupal(1L);
+		TransaccionModel parte = transaccion(2L, 30.0, 1L);
+
+		service.actualizarDeuda(null, service.deudaDe(cena, parte));
+		assertEquals(30.0, saldos.get(1L));
+		assertEquals(-30.0, saldos.get(2L));
+
+		SaldoGrupoService.Deuda anterior = service.deudaDe(cena, parte);
+		parte.setIdEstado(3L);
+		service.actualizarDeuda(anterior, service.deudaDe(cena, parte));
+		assertEquals(0.0, saldos.get(1L));
+		assertEquals(0.0, saldos.get(2L));
+	}
+
+	@Test
+	void laPartePropiaDelPagadorNoEsDeuda() {
+		assertNull(service.deudaDe(transaccionGrupal(1L), transaccion(1L, 30.0, 1L)));
+		assertNull(service.deudaDe(transaccionGrupal(null), transaccion(2L, 30.0, 1L)));
+	}
+
+	@Test
+	void enUnIngresoElPagadorDebeLaParteDeCadaMiembro() {
+		// 1 cobró 90 por el grupo: debe 45 a 2 y 45 a 3
+		service.actualizarDeuda(null, service.deudaDe(transaccionGrupal(1L, 1L), transaccion(2L, 45.0, 1L)));
+		service.actualizarDeuda(null, service.deudaDe(transaccionGrupal(1L, 1L), transaccion(3L, 45.0, 1L)));
+
+		assertEquals(-90.0, saldos.get(1L));
+		assertEquals(45.0, saldos.get(2L));
+		assertEquals(45.0, saldos.get(3L));
+		assertNull(service.deudaDe(transaccionGrupal(1L, 5L), transaccion(2L, 45.0, 1L)));
+	}
+
+	@Test
+	void laLiquidacionUsaComoMuchoNMenosUnPagos() {
+		// 1 pagó 90 (le deben 2 y 3), 4 pagó 30 (le debe 2)
+		service.actualizarDeuda(null, service.deudaDe(transaccionGrupal(1L), transaccion(2L, 45.0, 1L)));
+		service.actualizarDeuda(null, service.deudaDe(transaccionGrupal(1L), transaccion(3L, 45.0, 1L)));
+		service.actualizarDeuda(null, service.deudaDe(transaccionGrupal(4L), transaccion(2L, 30.0, 1L)));
+
+		List<PagoLiquidacionDTO> pagos = service.calcularLiquidacion(ID_GRUPO);
+
+		assertTrue(pagos.size() <= saldos.size() - 1);
+		Map<Long, Double> tras = new HashMap<>(saldos);
+		for (PagoLiquidacionDTO pago : pagos) {
+			tras.merge(pago.getIdDeudor(), pago.getImporte(), Double::sum);
+			tras.merge(pago.getIdAcreedor(), -pago.getImporte(), Double::sum);
+		}
+		tras.values().forEach(saldo -> assertEquals(0.0, saldo, 0.005));
+	}
+
+	private static TransaccionGrupalModel transaccionGrupal(Long idPagador) {
+		return transaccionGrupal(idPagador, 2L);
+	}
+
+	private static TransaccionGrupalModel transaccionGrupal(Long idPagador, Long idTipo) {
+		TransaccionGrupalModel tg = new TransaccionGrupalModel();
+		tg.setIdGrupo(ID_GRUPO);
+		tg.setIdPagador(idPagador);
+		tg.setIdTipo(idTipo);
+		return tg;
+	}
+
+	private static TransaccionModel transaccion(Long idUsuario, Double importe, Long idEstado) {
+		TransaccionModel t = new TransaccionModel();
+		t.setIdUsuario(idUsuario);
+		t.setImporte(importe);
+		t.setIdEstado(idEstado);
+		return t;
+	}
+}
@@ -0,0 +1,89 @@
+package com.lumeo.lumeo.support;
+
+import com.lumeo.lumeo.util.ContadorSentencias;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Aserciones sobre el número de sentencias SQL para fijar el presupuesto de consultas
+ * de cada endpoint o servicio en los tests de regresión
+ *
+ * Uso (el código probado debe ejecutarse en el hilo del test: llamada directa al
+ * servicio o MockMvc, no un servidor en puerto aleatorio):
+ *
+ *   reiniciarConteo();
+ *   mockMvc.perform(get("/api/transacciones/usuario/1/convertidas"));
+ *   assertQueryCount(3);
+ *
+ * Llamar a finalizarConteo() en @AfterEach para no dejar el conteo abierto en el hilo
+ */
+public final class ContadorSentenciasAssertions {
+
+    private static final ThreadLocal<ContadorSentencias.Conteo> CONTEO_TEST = new ThreadLocal<>();
+
+    private ContadorSentenciasAssertions() {
+    }
+
+    /**
+     * Empieza a contar desde cero (cierra el conteo anterior de este helper si lo había)
+     */
+    public static void reiniciarConteo() {
+        finalizarConteo();
+        CONTEO_TEST.set(ContadorSentencias.iniciar());
+    }
+
+    /**
+     * Cierra el conteo abierto con reiniciarConteo()
+     */
+    public static void finalizarConteo() {
+        if (CONTEO_TEST.get() != null) {
+            ContadorSentencias.detener();
+            CONTEO_TEST.remove();
+        }
+    }
+
+    /**
+     * Sentencias ejecutadas desde reiniciarConteo()
+     */
+    public static int queryCount() {
+        return conteoActual().getTotal();
+    }
+
+    /**
+     * Falla si el número de sentencias no es exactamente el esperado
+     */
+    public static void assertQueryCount(int esperado) {
+        ContadorSentencias.Conteo conteo = conteoActual();
+        if (conteo.getTotal() != esperado) {
+            fail("Se esperaban " + esperado + " sentencias SQL y se ejecutaron " + conteo.getTotal() + detalle(conteo));
+        }
+    }
+
+    /**
+     * Falla si el número de sentencias supera el máximo
+     */
+    public static void assertQueryCountAtMost(int maximo) {
+        ContadorSentencias.Conteo conteo = conteoActual();
+        if (conteo.getTotal() > maximo) {
+            fail("Se esperaban como mucho " + maximo + " sentencias SQL y se ejecutaron " + conteo.getTotal() + detalle(conteo));
+        }
+    }
+
+    private static ContadorSentencias.Conteo conteoActual() {
+        ContadorSentencias.Conteo conteo = CONTEO_TEST.get();
+        if (conteo == null) {
+            throw new IllegalStateException("Llama a reiniciarConteo() antes de comprobar el número de sentencias");
+        }
+        return conteo;
+    }
+
+    private static String detalle(ContadorSentencias.Conteo conteo) {
+        return conteo.getPorSentencia().entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .map(e -> "\n  " + e.getValue() + "x " + e.getKey())
+            .collect(Collectors.joining("", ":", ""));
+    }
+}
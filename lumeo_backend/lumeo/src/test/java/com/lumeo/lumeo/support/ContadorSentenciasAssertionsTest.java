@@ -0,0 +1,56 @@
+package com.lumeo.lumeo.support;
+
+import com.lumeo.lumeo.util.ContadorSentencias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.lumeo.lumeo.support.ContadorSentenciasAssertions.assertQueryCount;
+import static com.lumeo.lumeo.support.ContadorSentenciasAssertions.assertQueryCountAtMost;
+import static com.lumeo.lumeo.support.ContadorSentenciasAssertions.finalizarConteo;
+import static com.lumeo.lumeo.support.ContadorSentenciasAssertions.reiniciarConteo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContadorSentenciasAssertionsTest {
+
+	@AfterEach
+	void limpiar() {
+		finalizarConteo();
+	}
+
+	@Test
+	void cuentaLasSentenciasRegistradas() {
+		reiniciarConteo();
+		ContadorSentencias.registrar("select * from divisa where id=?");
+		ContadorSentencias.registrar("select * from divisa where id=?");
+		ContadorSentencias.registrar("select * from usuario where id=?");
+
+		assertQueryCount(3);
+		assertQueryCountAtMost(3);
+		assertThrows(AssertionError.class, () -> assertQueryCount(2));
+		assertThrows(AssertionError.class, () -> assertQueryCountAtMost(2));
+	}
+
+	@Test
+	void losConteosAnidadosSumanEnTodosLosNiveles() {
+		reiniciarConteo();
+		ContadorSentencias.registrar("select 1");
+
+		ContadorSentencias.Conteo peticion = ContadorSentencias.iniciar();
+		ContadorSentencias.registrar("select * from divisa where id=?");
+		ContadorSentencias.registrar("select * from divisa where id=?");
+		ContadorSentencias.detener();
+
+		assertEquals(2, peticion.getTotal());
+		assertEquals(2, peticion.masRepetida().orElseThrow().getValue());
+		assertQueryCount(3);
+	}
+
+	@Test
+	void sinConteoAbiertoNoSeRegistraNada() {
+		ContadorSentencias.registrar("select 1");
+		assertNull(ContadorSentencias.actual());
+		assertThrows(IllegalStateException.class, () -> assertQueryCount(0));
+	}
+}
@@ -0,0 +1,46 @@
+package com.lumeo.lumeo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FiltroBloomTest {
+
+	@Test
+	void noDaFalsosNegativos() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.add("usuario" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filtro.mightContain("usuario" + i), "usuario" + i);
+		}
+	}
+
+	@Test
+	void losFalsosPositivosRondanLaProporcionPedida() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.add("usuario" + i + "@lumeo.com");
+		}
+
+		int falsosPositivos = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filtro.mightContain("otro" + i + "@lumeo.com")) {
+				falsosPositivos++;
+			}
+		}
+		// 1% esperado; margen amplio para no depender de los valores concretos
+		assertTrue(falsosPositivos < 2_000, "falsos positivos: " + falsosPositivos);
+	}
+
+	@Test
+	void vacioNoContieneNada() {
+		FiltroBloom filtro = new FiltroBloom(0, 0.01);
+
+		assertFalse(filtro.mightContain(""));
+		assertFalse(filtro.mightContain("lumeo"));
+	}
+}
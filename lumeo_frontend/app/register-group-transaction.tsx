@@ -334,6 +334,7 @@ export default function RegisterGroupTransactionScreen() {
         idGrupo: idGrupo,
         idTipo: tipo === 'ingreso' ? 1 : 2,
         idCategoria: selectedCategory?.id || null,
+        idPagador: usuario?.id ?? null,
         transaccionesIndividuales: transaccionesIndividuales,
       });
 
@@ -6,6 +6,7 @@ export interface Presupuesto {
   id: number;
   mes: string;
   anio: string;
+  periodo?: number | null; // yyyymm
   cantidad: number;
   totalGastos?: number;
   idUsuario: number;
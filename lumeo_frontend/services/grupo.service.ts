@@ -26,6 +26,23 @@ export interface MiembroGrupo {
 export interface GrupoConMiembros {
   grupo: Grupo;
   miembros: MiembroGrupo[];
+  usuariosNoEncontrados?: string[] | null; // Solo al crear el grupo
+}
+
+export interface SaldoGrupo {
+  idUsuario: number;
+  nombreUsuario: string | null;
+  nombre: string | null;
+  apellido: string | null;
+  saldo: number; // Positivo: le deben. Negativo: debe
+}
+
+export interface PagoLiquidacion {
+  idDeudor: number;
+  nombreUsuarioDeudor: string | null;
+  idAcreedor: number;
+  nombreUsuarioAcreedor: string | null;
+  importe: number;
 }
 
 /**
@@ -104,6 +121,20 @@ export class GrupoService {
     return apiClient.get<GrupoConMiembros[]>(`${this.endpoint}/usuario/${idUsuario}`);
   }
 
+  /**
+   * Obtiene el saldo neto de cada miembro del grupo
+   */
+  async obtenerSaldos(idGrupo: number): Promise<SaldoGrupo[]> {
+    return apiClient.get<SaldoGrupo[]>(`${this.endpoint}/${idGrupo}/saldos`);
+  }
+
+  /**
+   * Obtiene los pagos mínimos para saldar las deudas del grupo
+   */
+  async obtenerLiquidacion(idGrupo: number): Promise<PagoLiquidacion[]> {
+    return apiClient.get<PagoLiquidacion[]>(`${this.endpoint}/${idGrupo}/liquidacion`);
+  }
+
   /**
    * Añade un miembro a un grupo existente
    * TODO: Implementar endpoint en el backend
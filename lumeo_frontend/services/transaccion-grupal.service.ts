@@ -14,6 +14,7 @@ export interface CrearTransaccionGrupalRequest {
   idCategoria?: number | null;
   idTipo: number;
   idAdjunto?: number | null;
+  idPagador?: number | null; // Usuario que pagó el total (los demás le deben su parte)
   transaccionesIndividuales: TransaccionIndividualRequest[];
 }
 